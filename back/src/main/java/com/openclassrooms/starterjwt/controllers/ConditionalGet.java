@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.repository.CollectionVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Strong validators for GET responses. A resource is identified by its id and updated_at, a
+ * listing by its row count and latest updated_at; both are read before anything is mapped.
+ */
+final class ConditionalGet {
+    private ConditionalGet() {
+    }
+
+    static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Sets ETag and Last-Modified on the response and returns true when the client copy is still
+     * current, in which case the status is already 304. Without a timestamp nothing is set.
+     */
+    static boolean checkNotModified(WebRequest request, Long id, LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return false;
+        }
+        Instant instant = toInstant(updatedAt);
+        return request.checkNotModified(etag(id + "-" + micros(instant)), instant.toEpochMilli());
+    }
+
+    static boolean checkNotModified(WebRequest request, CollectionVersion version) {
+        return checkNotModified(request, version, "");
+    }
+
+    /**
+     * Listing whose body depends on the caller. The response varies on Authorization and the
+     * caller id, when there is one, is part of the ETag, so a copy cached for one user is never
+     * validated for another.
+     */
+    static boolean checkNotModified(WebRequest request, CollectionVersion version, Long callerId) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        }
+        return checkNotModified(request, version, callerId != null ? "-" + callerId : "");
+    }
+
+    private static boolean checkNotModified(WebRequest request, CollectionVersion version, String suffix) {
+        if (version == null) {
+            return false;
+        }
+        Instant instant = version.getLastUpdated() != null ? toInstant(version.getLastUpdated()) : Instant.EPOCH;
+        return request.checkNotModified(etag(version.getTotal() + "-" + micros(instant) + suffix), instant.toEpochMilli());
+    }
+
+    private static String etag(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+}
@@ -1,70 +1,262 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.openclassrooms.starterjwt.dto.SessionBulkResult;
+import com.openclassrooms.starterjwt.dto.SessionChangesDto;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.ParticipantCursor;
+import com.openclassrooms.starterjwt.services.ParticipantPage;
+import com.openclassrooms.starterjwt.services.SessionBulkImporter;
+import com.openclassrooms.starterjwt.services.SessionChangeFeed;
+import com.openclassrooms.starterjwt.services.SessionChangeToken;
+import com.openclassrooms.starterjwt.services.SessionChanges;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionExporter;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = SessionController.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionBulkImporter sessionBulkImporter;
+    private final SessionExporter sessionExporter;
+    private final SessionChangeFeed sessionChangeFeed;
+    private final SessionEventBroadcaster sessionEventBroadcaster;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final boolean unpagedCatalog;
+    private final int defaultParticipantPageSize;
+    private final int maxParticipantPageSize;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             SessionBulkImporter sessionBulkImporter,
+                             SessionExporter sessionExporter,
+                             SessionChangeFeed sessionChangeFeed,
+                             SessionEventBroadcaster sessionEventBroadcaster,
+                             @Value("${oc.app.sessionPageDefaultSize:20}") int defaultPageSize,
+                             @Value("${oc.app.sessionPageMaxSize:100}") int maxPageSize,
+                             @Value("${oc.app.sessionCatalogUnpaged:false}") boolean unpagedCatalog,
+                             @Value("${oc.app.participantPageDefaultSize:200}") int defaultParticipantPageSize,
+                             @Value("${oc.app.participantPageMaxSize:1000}") int maxParticipantPageSize) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionBulkImporter = sessionBulkImporter;
+        this.sessionExporter = sessionExporter;
+        this.sessionChangeFeed = sessionChangeFeed;
+        this.sessionEventBroadcaster = sessionEventBroadcaster;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.unpagedCatalog = unpagedCatalog;
+        this.defaultParticipantPageSize = defaultParticipantPageSize;
+        this.maxParticipantPageSize = maxParticipantPageSize;
     }
 
+    /**
+     * A conditional request is answered from updated_at alone; the session is only loaded and
+     * mapped when the client copy is stale. With users=false the participant ids are left out, so
+     * the response size does not grow with attendance; they are paged through /participants.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id,
+                                      @RequestParam(value = "users", defaultValue = "true") boolean withUsers,
+                                      WebRequest webRequest) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            Long sessionId = Long.valueOf(id);
+            boolean conditional = ConditionalGet.isConditional(webRequest);
+            if (conditional && ConditionalGet.checkNotModified(webRequest, sessionId, this.sessionService.getUpdatedAt(sessionId))) {
+                return null;
+            }
+
+            Session session = this.sessionService.getById(sessionId);
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
+            if (!conditional) {
+                ConditionalGet.checkNotModified(webRequest, session.getId(), session.getUpdatedAt());
+            }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            if (!withUsers) {
+                return ResponseEntity.ok().body(this.sessionMapper.toSummaryDto(session));
+            }
+            List<Long> participantIds = this.sessionService.getParticipantIds(List.of(session.getId())).get(session.getId());
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(session, participantIds));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Participant ids in ascending order, one keyset page at a time, for sessions too large to
+     * inline. The cursor of the following page, if any, is returned in the X-Next-Cursor header.
+     */
+    @GetMapping("{id}/participants")
+    public ResponseEntity<?> findParticipants(@PathVariable("id") String id,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = limit == null
+                    ? this.defaultParticipantPageSize
+                    : Math.max(1, Math.min(limit, this.maxParticipantPageSize));
+            ParticipantPage page = this.sessionService.findParticipantPage(Long.valueOf(id),
+                    cursor == null ? null : ParticipantCursor.decode(cursor), pageSize);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNext() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNext().encode());
+            }
+            return response.body(page.getUserIds());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Catalog page in (date, id) order. The cursor of the following page, if any, is returned in
+     * the X-Next-Cursor header so the body stays a plain array. Every page shares the catalog
+     * validators, so any change to a session invalidates all cached pages. With users=false the
+     * participant ids are left out and participantCount alone carries the occupancy. Items carry
+     * joined for an authenticated caller, whose id is then part of the validators.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                     @RequestParam(value = "users", defaultValue = "true") boolean withUsers,
+                                     WebRequest webRequest) {
+        if (ConditionalGet.checkNotModified(webRequest, this.sessionService.getCollectionVersion(), callerId())) {
+            return null;
+        }
+
+        if (this.unpagedCatalog && cursor == null && limit == null) {
+            List<Session> sessions = this.sessionService.findAll();
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+            return ResponseEntity.ok().body(toCatalogDto(sessions, withUsers));
+        }
+
+        int pageSize = limit == null ? this.defaultPageSize : Math.max(1, Math.min(limit, this.maxPageSize));
+        SessionPage page = this.sessionService.findPage(cursor == null ? null : SessionCursor.decode(cursor), pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNext().encode());
+        }
+        return response.body(toCatalogDto(page.getSessions(), withUsers));
     }
 
+    /**
+     * Sessions created or updated and ids of sessions deleted since the watermark, with the
+     * watermark to send next time. Without since, the whole catalog is returned; 410 means the
+     * watermark is older than the tombstone retention and the client must start over. With
+     * users=false the participant ids are left out, as in the catalog.
+     */
+    @GetMapping("changes")
+    public ResponseEntity<?> changes(@RequestParam(value = "since", required = false) String since,
+                                     @RequestParam(value = "users", defaultValue = "true") boolean withUsers) {
+        SessionChanges changes = this.sessionChangeFeed.findChanges(since == null ? null : SessionChangeToken.decode(since));
+
+        List<Session> sessions = changes.getSessions();
+        return ResponseEntity.ok().body(new SessionChangesDto(
+                withUsers ? this.sessionMapper.toDto(sessions, participantIds(sessions)) : this.sessionMapper.toSummaryDto(sessions),
+                changes.getDeletedIds(),
+                changes.getNext().encode(),
+                changes.isMore()));
+    }
+
+    /**
+     * Server-Sent Events stream of committed session and participation changes, so clients no
+     * longer poll single sessions to notice freed spots.
+     */
+    @GetMapping(value = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        return this.sessionEventBroadcaster.subscribe();
+    }
+
+    /**
+     * Every session in catalog order, written to the response as it is read from the database.
+     * With users=false the participant ids are neither read nor written.
+     */
+    @GetMapping("export")
+    public void export(@RequestParam(value = "users", defaultValue = "true") boolean withUsers,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        int count = this.sessionExporter.export(response.getOutputStream(), withUsers);
+
+        log.info("Exported {} sessions", count);
+    }
+
+    /**
+     * Returns the created session. With users=false the participant ids are left out and
+     * participantCount alone carries the occupancy.
+     */
     @PostMapping()
-    public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto) {
+    public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto,
+                                    @RequestParam(value = "users", defaultValue = "true") boolean withUsers) {
         log.info(sessionDto);
 
         Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
 
         log.info(session);
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+        return ResponseEntity.ok().body(withUsers ? this.sessionMapper.toDto(session) : this.sessionMapper.toSummaryDto(session));
+    }
+
+    /**
+     * Creates items without an id and updates the others, reading the array as a stream. The body
+     * holds one result per item, in input order.
+     */
+    @PostMapping(value = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> bulk(HttpServletRequest request) throws IOException {
+        List<SessionBulkResult> results = this.sessionBulkImporter.importSessions(request.getInputStream());
+
+        log.info("Bulk import of {} sessions", results.size());
+        return ResponseEntity.ok().body(results);
     }
 
+    /**
+     * With users=false the participant ids are left out of the response, so a busy session does
+     * not load its participants.
+     */
     @PutMapping("{id}")
-    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
+    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto,
+                                    @RequestParam(value = "users", defaultValue = "true") boolean withUsers) {
         try {
-            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntity(sessionDto));
+            // Participants in the body are ignored; they change through participate endpoints only
+            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntityWithoutUsers(sessionDto));
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            if (!withUsers) {
+                return ResponseEntity.ok().body(this.sessionMapper.toSummaryDto(session));
+            }
+            List<Long> participantIds = this.sessionService.getParticipantIds(List.of(session.getId())).get(session.getId());
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(session, participantIds));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -89,9 +281,10 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            boolean seated = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
 
-            return ResponseEntity.ok().build();
+            // 202: the session is full and the user is on the waitlist
+            return seated ? ResponseEntity.ok().build() : ResponseEntity.accepted().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -107,4 +300,34 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    // Without users, list views show occupancy from participantCount and skip the join table
+    private List<SessionDto> toCatalogDto(List<Session> sessions, boolean withUsers) {
+        List<SessionDto> sessionDtos = withUsers
+                ? this.sessionMapper.toDto(sessions, participantIds(sessions))
+                : this.sessionMapper.toSummaryDto(sessions);
+
+        Long callerId = callerId();
+        if (callerId != null) {
+            // The participant ids already answer it; otherwise one lookup on the caller's rows
+            Set<Long> joined = withUsers
+                    ? null
+                    : this.sessionService.getJoinedSessionIds(callerId, sessions.stream().map(Session::getId).collect(Collectors.toList()));
+            sessionDtos.forEach(sessionDto -> sessionDto.setJoined(withUsers
+                    ? sessionDto.getUsers().contains(callerId)
+                    : joined.contains(sessionDto.getId())));
+        }
+        return sessionDtos;
+    }
+
+    private static Long callerId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails
+                ? userDetails.getId()
+                : null;
+    }
+
+    private Map<Long, List<Long>> participantIds(List<Session> sessions) {
+        return this.sessionService.getParticipantIds(sessions.stream().map(Session::getId).collect(Collectors.toList()));
+    }
 }
@@ -5,6 +5,8 @@ import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -22,13 +24,22 @@ public class TeacherController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest webRequest) {
         try {
-            Teacher teacher = this.teacherService.findById(Long.valueOf(id));
+            Long teacherId = Long.valueOf(id);
+            boolean conditional = ConditionalGet.isConditional(webRequest);
+            if (conditional && ConditionalGet.checkNotModified(webRequest, teacherId, this.teacherService.getUpdatedAt(teacherId))) {
+                return null;
+            }
+
+            Teacher teacher = this.teacherService.findById(teacherId);
 
             if (teacher == null) {
                 return ResponseEntity.notFound().build();
             }
+            if (!conditional) {
+                ConditionalGet.checkNotModified(webRequest, teacher.getId(), teacher.getUpdatedAt());
+            }
 
             return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
         } catch (NumberFormatException e) {
@@ -37,7 +48,11 @@ public class TeacherController {
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest webRequest) {
+        if (ConditionalGet.checkNotModified(webRequest, this.teacherService.getCollectionVersion())) {
+            return null;
+        }
+
         List<Teacher> teachers = this.teacherService.findAll();
 
         return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
@@ -1,9 +1,12 @@
 package com.openclassrooms.starterjwt.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -31,8 +34,21 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
+    // Left out of catalog pages requested without users
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Long> users;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int participantCount;
+
+    // Whether the authenticated caller takes part; only set on catalog items
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean joined;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
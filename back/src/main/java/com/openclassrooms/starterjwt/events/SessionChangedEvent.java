@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by SessionService and SessionEnrollment whenever a session, its participants or its
+ * waitlist change; userId is only set for participation and waitlist events.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        PARTICIPATED,
+        UNPARTICIPATED,
+        WAITLISTED,
+        UNWAITLISTED
+    }
+
+    private final Type type;
+
+    private final Long sessionId;
+
+    private final Long userId;
+
+    public SessionChangedEvent(Type type, Long sessionId) {
+        this(type, sessionId, null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a user row is updated or deleted.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private final Long id;
+
+    private final String email;
+}
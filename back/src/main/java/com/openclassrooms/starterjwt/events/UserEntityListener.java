@@ -0,0 +1,25 @@
+package com.openclassrooms.starterjwt.events;
+
+import com.openclassrooms.starterjwt.models.User;
+import org.springframework.context.ApplicationEventPublisher;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener turning user row changes into {@link UserChangedEvent}s.
+ * Instantiated by Hibernate through Spring's bean container.
+ */
+public class UserEntityListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        this.eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
+    }
+}
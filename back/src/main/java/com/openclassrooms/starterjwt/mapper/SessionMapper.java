@@ -8,11 +8,14 @@ import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,16 +30,76 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.getReference(sessionDto.getTeacher_id()) : null)"),
+            @Mapping(target = "users", expression = "java(this.userService.findAllById(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList)))"),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
+    /**
+     * Scalar fields and teacher reference, for updates that leave participants as stored.
+     */
+    @Named("withTeacherOnly")
+    @Mappings({
+            @Mapping(source = "description", target = "description"),
+            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.getReference(sessionDto.getTeacher_id()) : null)"),
+            @Mapping(target = "users", ignore = true),
+    })
+    public abstract Session toEntityWithoutUsers(SessionDto sessionDto);
+
+    /**
+     * Scalar fields only; callers that already resolved the teacher and users in bulk set them.
+     */
+    @Named("withoutRelations")
+    @Mappings({
+            @Mapping(source = "description", target = "description"),
+            @Mapping(target = "teacher", ignore = true),
+            @Mapping(target = "users", ignore = true),
+    })
+    public abstract Session toEntityWithoutRelations(SessionDto sessionDto);
+
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
+            @Mapping(target = "joined", ignore = true),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Named("withoutUsers")
+    @Mappings({
+            @Mapping(source = "description", target = "description"),
+            @Mapping(source = "session.teacher.id", target = "teacher_id"),
+            @Mapping(target = "users", ignore = true),
+            @Mapping(target = "joined", ignore = true),
+    })
+    abstract SessionDto toDtoWithoutUsers(Session session);
+
+    /**
+     * Maps a session whose participants were read separately, leaving the lazy users collection untouched.
+     */
+    public SessionDto toDto(Session session, List<Long> participantIds) {
+        SessionDto sessionDto = toDtoWithoutUsers(session);
+        sessionDto.setUsers(participantIds != null ? participantIds : Collections.emptyList());
+        return sessionDto;
+    }
+
+    /**
+     * Occupancy only: participantCount is set and users is left out, so the join table is neither
+     * read nor serialized.
+     */
+    @Named("summary")
+    public SessionDto toSummaryDto(Session session) {
+        return toDtoWithoutUsers(session);
+    }
+
+    public List<SessionDto> toSummaryDto(List<Session> sessions) {
+        return sessions.stream().map(this::toDtoWithoutUsers).collect(Collectors.toList());
+    }
+
+    public List<SessionDto> toDto(List<Session> sessions, Map<Long, List<Long>> participantIds) {
+        return sessions.stream()
+                .map(session -> toDto(session, participantIds.get(session.getId())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.models;
+
+/**
+ * Shared settings of the table-backed id generators. Ids are handed out in blocks by Hibernate's
+ * pooled optimizer, so inserts no longer need the database to return the key and can be sent as
+ * JDBC batches. Changing ALLOCATION_SIZE requires a migration realigning ID_GENERATORS.next_val.
+ */
+public final class IdGenerators {
+    public static final String TABLE = "ID_GENERATORS";
+
+    public static final String NAME_COLUMN = "name";
+
+    public static final String VALUE_COLUMN = "next_val";
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
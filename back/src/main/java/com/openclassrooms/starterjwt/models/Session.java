@@ -8,6 +8,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -17,6 +18,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "SESSIONS")
+@NamedEntityGraph(name = Session.WITH_USERS, attributeNodes = @NamedAttributeNode("users"))
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Accessors(chain = true)
@@ -26,8 +28,12 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    public static final String WITH_USERS = "Session.withUsers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "session_id")
+    @TableGenerator(name = "session_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "SESSIONS", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
@@ -41,17 +47,31 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
-    @OneToOne
+    // Both associations are lazy; read paths use participant id projections and write paths
+    // pick an entity graph.
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    @ToString.Exclude
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "user_id"}) )
+    @ToString.Exclude
     private List<User> users;
 
+    // Null means unlimited
+    @Min(1)
+    private Integer capacity;
+
+    // Seats taken, also shown as occupancy. Only moved by the conditional updates in
+    // SessionRepository, never by an entity flush
+    @Column(name = "participant_count", updatable = false)
+    private int participantCount;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -59,4 +79,9 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    void countInitialParticipants() {
+        this.participantCount = this.users != null ? this.users.size() : 0;
+    }
 }
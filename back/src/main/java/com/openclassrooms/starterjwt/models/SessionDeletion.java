@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone kept for a deleted session so that delta sync can tell clients to drop it.
+ */
+@Entity
+@Table(name = "SESSION_DELETIONS")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionDeletion {
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+}
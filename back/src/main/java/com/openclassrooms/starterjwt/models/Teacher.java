@@ -23,7 +23,9 @@ import java.time.LocalDateTime;
 @ToString
 public class Teacher {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "teacher_id")
+    @TableGenerator(name = "teacher_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "TEACHERS", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
@@ -1,5 +1,6 @@
 package com.openclassrooms.starterjwt.models;
 
+import com.openclassrooms.starterjwt.events.UserEntityListener;
 import lombok.*;
 import lombok.experimental.Accessors;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 })
 @Data
 @Accessors(chain = true)
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, UserEntityListener.class})
 @EqualsAndHashCode(of = {"id"})
 @Builder
 @NoArgsConstructor
@@ -26,7 +27,9 @@ import java.time.LocalDateTime;
 @ToString
 public class User {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+  @TableGenerator(name = "user_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+      valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "USERS", allocationSize = IdGenerators.ALLOCATION_SIZE)
   private Long id;
 
   @NonNull
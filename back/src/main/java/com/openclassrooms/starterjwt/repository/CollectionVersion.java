@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest update time and row count of a table, enough to tell whether a listing changed.
+ * lastUpdated is null when the table is empty.
+ */
+public interface CollectionVersion {
+    LocalDateTime getLastUpdated();
+
+    long getTotal();
+}
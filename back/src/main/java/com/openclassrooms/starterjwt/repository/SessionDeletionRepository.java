@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SessionDeletionRepository extends JpaRepository<SessionDeletion, Long> {
+    // Plain insert: save() would select first because the id is assigned
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO SESSION_DELETIONS (session_id, deleted_at) VALUES (:sessionId, :deletedAt)", nativeQuery = true)
+    int record(@Param("sessionId") Long sessionId, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Keyset continuation: strictly after (deletedAt, sessionId), up to the settled bound
+    @Query("select d from SessionDeletion d where (d.deletedAt > :deletedAt or (d.deletedAt = :deletedAt and d.sessionId > :sessionId)) "
+            + "and d.deletedAt <= :until order by d.deletedAt asc, d.sessionId asc")
+    List<SessionDeletion> findAfter(@Param("deletedAt") LocalDateTime deletedAt, @Param("sessionId") Long sessionId,
+                                    @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SessionDeletion d where d.deletedAt < :horizon")
+    int deleteOlderThan(@Param("horizon") LocalDateTime horizon);
+}
@@ -1,9 +1,150 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+    // Catalog keyset queries, shared with SessionExporter so both walk the same order and tie-break
+    String CATALOG_FIRST_PAGE = "select s from Session s order by s.date asc, s.id asc";
+
+    String CATALOG_PAGE_AFTER = "select s from Session s where s.date > :date or (s.date = :date and s.id > :id) "
+            + "order by s.date asc, s.id asc";
+
+    String PARTICIPANT_IDS = "SELECT session_id AS sessionId, user_id AS userId FROM PARTICIPATE WHERE session_id IN (:sessionIds)";
+
+    @Query(CATALOG_FIRST_PAGE)
+    List<Session> findAllByOrderByDateAscIdAsc(Pageable pageable);
+
+    // Keyset continuation: strictly after (date, id) in catalog order
+    @Query(CATALOG_PAGE_AFTER)
+    List<Session> findPageAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    // Delta sync: strictly after (updatedAt, id), up to the settled bound
+    @Query("select s from Session s where (s.updatedAt > :updatedAt or (s.updatedAt = :updatedAt and s.id > :id)) "
+            + "and s.updatedAt <= :until order by s.updatedAt asc, s.id asc")
+    List<Session> findChangedAfter(@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id,
+                                   @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Query("select s.updatedAt from Session s where s.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    @Query("select max(s.updatedAt) as lastUpdated, count(s) as total from Session s")
+    CollectionVersion findCollectionVersion();
+
+    @EntityGraph(Session.WITH_USERS)
+    Optional<Session> findWithUsersById(Long id);
+
+    @Query(value = PARTICIPANT_IDS, nativeQuery = true)
+    List<SessionParticipant> findParticipantIds(@Param("sessionIds") Collection<Long> sessionIds);
+
+    // Keyset over the (session_id, user_id) primary key
+    @Query(value = "SELECT user_id FROM PARTICIPATE WHERE session_id = :sessionId AND user_id > :after ORDER BY user_id ASC",
+            nativeQuery = true)
+    List<Long> findParticipantIdsAfter(@Param("sessionId") Long sessionId, @Param("after") Long after, Pageable pageable);
+
+    // Reverse lookups below go through idx_participate_user_id, never the whole join table
+    @Query(value = "SELECT s.* FROM SESSIONS s JOIN PARTICIPATE p ON p.session_id = s.id "
+            + "WHERE p.user_id = :userId ORDER BY s.date ASC, s.id ASC", nativeQuery = true)
+    List<Session> findJoinedBy(@Param("userId") Long userId);
+
+    @Query(value = "SELECT session_id FROM PARTICIPATE WHERE user_id = :userId AND session_id IN (:sessionIds)",
+            nativeQuery = true)
+    List<Long> findJoinedSessionIds(@Param("userId") Long userId, @Param("sessionIds") Collection<Long> sessionIds);
+
+    /**
+     * Adds the participation only if both rows exist and it is not already there; returns the
+     * number of rows inserted. A concurrent duplicate is rejected by the (session_id, user_id) key.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) "
+            + "SELECT s.id, u.id FROM SESSIONS s, USERS u WHERE s.id = :sessionId AND u.id = :userId "
+            + "AND NOT EXISTS (SELECT 1 FROM PARTICIPATE p WHERE p.session_id = :sessionId AND p.user_id = :userId)",
+            nativeQuery = true)
+    int insertParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int deleteParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Takes a seat if one is left and bumps updated_at; returns 1 when admitted. The session row
+     * stays locked until the transaction ends. updatedAt comes from the JVM clock, like every other
+     * writer of updated_at, and never moves the column backwards, so a writer that waited on the
+     * lock cannot stamp an older time than the one it queued behind.
+     */
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count + 1, "
+            + "updated_at = GREATEST(updated_at, :updatedAt) "
+            + "WHERE id = :id AND (capacity IS NULL OR participant_count < capacity)", nativeQuery = true)
+    int claimSeat(@Param("id") Long id, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count - 1, "
+            + "updated_at = GREATEST(updated_at, :updatedAt) "
+            + "WHERE id = :id AND participant_count > 0", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Re-derives participant_count from PARTICIPATE for the given sessions, writing (and bumping
+     * updated_at on) only the rows that drifted; returns how many were fixed. updated_at never moves
+     * backwards, so a repair cannot hand clients an ETag they already hold.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET participant_count = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = SESSIONS.id), "
+            + "updated_at = GREATEST(updated_at, :updatedAt) WHERE id IN (:ids) "
+            + "AND participant_count <> (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = SESSIONS.id)", nativeQuery = true)
+    int recountParticipants(@Param("ids") Collection<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Moves updated_at of the given sessions forward to updatedAt, never backwards. Run just before
+     * a long transaction commits, so delta sync does not find its rows already behind the settled
+     * watermarks. The time is bound rather than read from CURRENT_TIMESTAMP, which H2 evaluates
+     * once per transaction.
+     */
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET updated_at = GREATEST(updated_at, :updatedAt) WHERE id IN (:ids)",
+            nativeQuery = true)
+    int restamp(@Param("ids") Collection<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("select s.id from Session s where s.id > :after order by s.id asc")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query(value = "SELECT id FROM SESSIONS WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @Query(value = "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    long countParticipation(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO WAITLIST (session_id, user_id, queued_at) "
+            + "SELECT :sessionId, u.id, :queuedAt FROM USERS u WHERE u.id = :userId "
+            + "AND NOT EXISTS (SELECT 1 FROM WAITLIST w WHERE w.session_id = :sessionId AND w.user_id = :userId)",
+            nativeQuery = true)
+    int insertWaitlisted(@Param("sessionId") Long sessionId, @Param("userId") Long userId,
+                         @Param("queuedAt") LocalDateTime queuedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM WAITLIST WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int deleteWaitlisted(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Query(value = "SELECT user_id FROM WAITLIST WHERE session_id = :sessionId ORDER BY queued_at ASC, user_id ASC LIMIT 1",
+            nativeQuery = true)
+    Optional<Long> findWaitlistHead(@Param("sessionId") Long sessionId);
 }
@@ -1,6 +1,14 @@
 package com.openclassrooms.starterjwt.security;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.DispatcherType;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,11 +23,18 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.services.BoundedPasswordEncoder;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
@@ -31,6 +46,19 @@ public class WebSecurityConfig {
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  // 0 sizes the pool to the number of cores
+  @Value("${oc.app.passwordHashingPoolSize:0}")
+  private int passwordHashingPoolSize;
+
+  @Value("${oc.app.passwordHashingQueueCapacity:64}")
+  private int passwordHashingQueueCapacity;
+
+  @Value("${oc.app.passwordHashingRetryAfterSeconds:1}")
+  private long passwordHashingRetryAfterSeconds;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -49,9 +77,25 @@ public class WebSecurityConfig {
     return authConfig.getAuthenticationManager();
   }
 
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolExecutor passwordHashingExecutor() {
+    int poolSize = passwordHashingPoolSize > 0 ? passwordHashingPoolSize : Runtime.getRuntime().availableProcessors();
+    Counter rejected = meterRegistry.counter("executor.rejected", "name", "passwordHashing");
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(passwordHashingQueueCapacity),
+        new CustomizableThreadFactory("password-hashing-"),
+        (task, pool) -> {
+          rejected.increment();
+          throw new RejectedExecutionException("Password hashing queue is full");
+        });
+    new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(meterRegistry);
+    return executor;
+  }
+
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingExecutor(),
+        passwordHashingRetryAfterSeconds);
   }
 
   @Bean
@@ -60,6 +104,8 @@ public class WebSecurityConfig {
         .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
         .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
         .authorizeHttpRequests()
+        // Async dispatches resume a request that was already authorized, e.g. a closing SSE stream
+        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
         .requestMatchers("/api/auth/**").permitAll()
         .requestMatchers("/api/**").authenticated()
         .anyRequest().authenticated();
@@ -0,0 +1,92 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts authentication failures per type and logs at most one summary line per interval, so a
+ * flood of bad tokens costs a counter increment rather than a log line. Totals are published as
+ * the "auth.failures" counter tagged by type.
+ */
+@Component
+public class AuthFailureLogger {
+  private static final Logger logger = LoggerFactory.getLogger(AuthFailureLogger.class);
+
+  public enum Type {
+    INVALID_SIGNATURE, MALFORMED, EXPIRED, UNSUPPORTED, EMPTY, PRINCIPAL_LOOKUP, UNAUTHORIZED;
+
+    static Type of(JwtValidationResult.Status status) {
+      return valueOf(status.name());
+    }
+  }
+
+  private final Map<Type, LongAdder> windowCounts = new EnumMap<>(Type.class);
+
+  private final Map<Type, Counter> totals = new EnumMap<>(Type.class);
+
+  private final long intervalNanos;
+
+  private final LongSupplier nanoTime;
+
+  private final AtomicLong nextLogAt;
+
+  @Autowired
+  public AuthFailureLogger(@Value("${oc.app.authFailureLogIntervalMs:60000}") long intervalMs,
+      MeterRegistry meterRegistry) {
+    this(intervalMs, meterRegistry, System::nanoTime);
+  }
+
+  AuthFailureLogger(long intervalMs, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+    for (Type type : Type.values()) {
+      windowCounts.put(type, new LongAdder());
+      totals.put(type, Counter.builder("auth.failures").tag("type", type.name()).register(meterRegistry));
+    }
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    this.nanoTime = nanoTime;
+    // The first failure is always logged.
+    this.nextLogAt = new AtomicLong(nanoTime.getAsLong());
+  }
+
+  public void record(JwtValidationResult.Status status, String detail) {
+    record(Type.of(status), detail);
+  }
+
+  public void record(Type type, String detail) {
+    windowCounts.get(type).increment();
+    totals.get(type).increment();
+
+    long now = nanoTime.getAsLong();
+    long due = nextLogAt.get();
+    if (now - due >= 0 && nextLogAt.compareAndSet(due, now + intervalNanos)) {
+      logger.warn("Authentication failures since last report: {} (latest {}: {})", drainWindow(), type, detail);
+    }
+  }
+
+  public long total(Type type) {
+    return (long) totals.get(type).count();
+  }
+
+  private Map<Type, Long> drainWindow() {
+    Map<Type, Long> counts = new EnumMap<>(Type.class);
+    windowCounts.forEach((type, adder) -> {
+      long count = adder.sumThenReset();
+      if (count > 0) {
+        counts.put(type, count);
+      }
+    });
+    return counts;
+  }
+}
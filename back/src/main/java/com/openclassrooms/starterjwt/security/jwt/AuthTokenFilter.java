@@ -7,9 +7,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +16,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -26,17 +26,30 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
-  private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
+  @Autowired
+  private UserDetailsCache userDetailsCache;
+
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Autowired
+  private AuthFailureLogger authFailureLogger;
+
+  // When enabled, the principal is rebuilt from the token claims instead of being reloaded from the database.
+  @Value("${oc.app.jwtStatelessPrincipal:false}")
+  private boolean statelessPrincipal;
+
+  @Value("${oc.app.jwtPrincipalMaxStalenessMs:300000}")
+  private long principalMaxStalenessMs;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      JwtValidationResult token = jwt != null ? verifyJwt(jwt) : null;
+      if (token != null && token.isValid()) {
+        UserDetails userDetails = loadUserDetails(token);
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -45,14 +58,36 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
+      } else if (token != null) {
+        authFailureLogger.record(token.getStatus(), token.getMessage());
       }
     } catch (Exception e) {
-      logger.error("Cannot set user authentication: {}", e);
+      authFailureLogger.record(AuthFailureLogger.Type.PRINCIPAL_LOOKUP, e.getMessage());
     }
 
     filterChain.doFilter(request, response);
   }
 
+  private JwtValidationResult verifyJwt(String jwt) {
+    JwtValidationResult token = verifiedTokenCache.get(jwt);
+    if (token == null) {
+      token = jwtUtils.parseJwtToken(jwt);
+      verifiedTokenCache.put(jwt, token);
+    }
+    return token;
+  }
+
+  private UserDetails loadUserDetails(JwtValidationResult token) {
+    if (statelessPrincipal) {
+      UserDetails userDetails = jwtUtils.getUserDetailsFromJwtToken(token, principalMaxStalenessMs);
+      if (userDetails != null) {
+        return userDetails;
+      }
+    }
+
+    return userDetailsCache.get(token.getSubject(), userDetailsService::loadUserByUsername);
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
@@ -0,0 +1,220 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+
+/**
+ * ES256 signer backed by a key directory shared by every node (a mounted volume or secret).
+ * Each "&lt;kid&gt;.pem" file holds an X.509 "PUBLIC KEY" block and, on signing nodes, the matching
+ * PKCS#8 "PRIVATE KEY" block. The file name is the "kid" header, so key ids are the same on every
+ * node and across restarts. Every key in the directory verifies; the greatest kid that has a
+ * private key signs. The directory is re-read every reloadMs, and at most once per second when a
+ * token carries an unknown kid.
+ *
+ * <p>To rotate, add the new file with its public key only and wait one reload so every node
+ * accepts it. Then add its private key so it starts signing. Delete the old file once the tokens
+ * it signed have expired.
+ */
+public class EcJwtKeyRing implements JwtSigner {
+  private static final Logger logger = LoggerFactory.getLogger(EcJwtKeyRing.class);
+
+  private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+  private static final Pattern KID = Pattern.compile("[A-Za-z0-9._-]+");
+
+  private static final Pattern PEM_BLOCK = Pattern.compile(
+      "-----BEGIN (PUBLIC KEY|PRIVATE KEY)-----([A-Za-z0-9+/=\\s]+)-----END \\1-----");
+
+  private static final long UNKNOWN_KID_RELOAD_MS = 1000;
+
+  private final Path keyDir;
+
+  private final long reloadMs;
+
+  private final Clock clock;
+
+  private volatile Snapshot snapshot;
+
+  /**
+   * Loads the directory once; throws IllegalStateException when it cannot be read, holds an
+   * invalid key, or has no private key to sign with.
+   */
+  public EcJwtKeyRing(Path keyDir, long reloadMs, Clock clock) {
+    this.keyDir = keyDir;
+    this.reloadMs = reloadMs;
+    this.clock = clock;
+    this.snapshot = load(clock.instant());
+  }
+
+  @Override
+  public JwtBuilder sign(JwtBuilder builder) {
+    Snapshot keys = current();
+    return builder
+        .setHeaderParam(JwsHeader.KEY_ID, keys.signingKid)
+        .signWith(SignatureAlgorithm.ES256, keys.signingKey);
+  }
+
+  @Override
+  public Key getVerificationKey(JwsHeader<?> header) {
+    if (!SignatureAlgorithm.ES256.getValue().equals(header.getAlgorithm())) {
+      throw new SignatureException("Unexpected JWT algorithm: " + header.getAlgorithm());
+    }
+    String kid = header.getKeyId();
+    Snapshot keys = current();
+    ECPublicKey key = kid != null ? keys.publicKeys.get(kid) : null;
+    if (key == null && kid != null
+        && !keys.loadedAt.plusMillis(UNKNOWN_KID_RELOAD_MS).isAfter(clock.instant())) {
+      // Another node may already sign with a key this one has not read yet
+      key = reload(keys).publicKeys.get(kid);
+    }
+    if (key == null) {
+      throw new SignatureException("Unknown JWT key id: " + kid);
+    }
+    return key;
+  }
+
+  @Override
+  public List<Map<String, Object>> getPublicJwks() {
+    return current().publicKeys.entrySet().stream()
+        .map(entry -> toJwk(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  private Snapshot current() {
+    Snapshot keys = snapshot;
+    if (!keys.loadedAt.plusMillis(reloadMs).isAfter(clock.instant())) {
+      keys = reload(keys);
+    }
+    return keys;
+  }
+
+  private synchronized Snapshot reload(Snapshot seen) {
+    if (snapshot != seen) {
+      return snapshot;
+    }
+    Instant now = clock.instant();
+    try {
+      snapshot = load(now);
+    } catch (IllegalStateException e) {
+      // Keep signing with the keys already loaded; a half-written file must not lock users out
+      logger.warn("Cannot reload JWT keys from {}: {}", keyDir, e.getMessage());
+      snapshot = new Snapshot(seen.publicKeys, seen.signingKid, seen.signingKey, now);
+    }
+    return snapshot;
+  }
+
+  private Snapshot load(Instant now) {
+    Map<String, ECPublicKey> publicKeys = new TreeMap<>(Collections.reverseOrder());
+    Map<String, PrivateKey> privateKeys = new TreeMap<>(Collections.reverseOrder());
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(keyDir, "*.pem")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        String kid = name.substring(0, name.length() - ".pem".length());
+        if (!KID.matcher(kid).matches()) {
+          throw new IllegalStateException("Invalid JWT key id: " + name);
+        }
+        readPem(kid, Files.readString(file, StandardCharsets.US_ASCII), publicKeys, privateKeys);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read JWT keys from " + keyDir, e);
+    }
+    if (privateKeys.isEmpty()) {
+      throw new IllegalStateException("No ES256 private key in " + keyDir);
+    }
+    String signingKid = privateKeys.keySet().iterator().next();
+    return new Snapshot(Collections.unmodifiableMap(publicKeys), signingKid, privateKeys.get(signingKid), now);
+  }
+
+  private static void readPem(String kid, String pem, Map<String, ECPublicKey> publicKeys,
+      Map<String, PrivateKey> privateKeys) {
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance("EC");
+      Matcher block = PEM_BLOCK.matcher(pem);
+      while (block.find()) {
+        byte[] der = Base64.getMimeDecoder().decode(block.group(2));
+        if ("PUBLIC KEY".equals(block.group(1))) {
+          ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(der));
+          if (publicKey.getParams().getCurve().getField().getFieldSize() != 256) {
+            throw new IllegalStateException("JWT key " + kid + " is not a P-256 key");
+          }
+          publicKeys.put(kid, publicKey);
+        } else {
+          privateKeys.put(kid, keyFactory.generatePrivate(new PKCS8EncodedKeySpec(der)));
+        }
+      }
+    } catch (GeneralSecurityException | IllegalArgumentException | ClassCastException e) {
+      throw new IllegalStateException("Invalid JWT key " + kid, e);
+    }
+    if (!publicKeys.containsKey(kid)) {
+      throw new IllegalStateException("JWT key " + kid + " has no PUBLIC KEY block");
+    }
+  }
+
+  private static Map<String, Object> toJwk(String kid, ECPublicKey publicKey) {
+    Map<String, Object> jwk = new LinkedHashMap<>();
+    jwk.put("kty", "EC");
+    jwk.put("crv", "P-256");
+    jwk.put("use", "sig");
+    jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+    jwk.put("kid", kid);
+    jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+    jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+    return jwk;
+  }
+
+  private static String coordinate(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] fixed = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+    return BASE64_URL.encodeToString(fixed);
+  }
+
+  private static final class Snapshot {
+    private final Map<String, ECPublicKey> publicKeys;
+
+    private final String signingKid;
+
+    private final PrivateKey signingKey;
+
+    private final Instant loadedAt;
+
+    private Snapshot(Map<String, ECPublicKey> publicKeys, String signingKid, PrivateKey signingKey,
+        Instant loadedAt) {
+      this.publicKeys = publicKeys;
+      this.signingKid = signingKid;
+      this.signingKey = signingKey;
+      this.loadedAt = loadedAt;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.security.Key;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.TextCodec;
+
+/**
+ * HS512 signer sharing oc.app.jwtSecret between every node. Publishes no JWK.
+ */
+public class HmacJwtSigner implements JwtSigner {
+  private final Key key;
+
+  public HmacJwtSigner(String base64EncodedSecret) {
+    this.key = new SecretKeySpec(TextCodec.BASE64.decode(base64EncodedSecret), SignatureAlgorithm.HS512.getJcaName());
+  }
+
+  @Override
+  public JwtBuilder sign(JwtBuilder builder) {
+    return builder.signWith(SignatureAlgorithm.HS512, key);
+  }
+
+  @Override
+  public Key getVerificationKey(JwsHeader<?> header) {
+    if (!SignatureAlgorithm.HS512.getValue().equals(header.getAlgorithm())) {
+      throw new SignatureException("Unexpected JWT algorithm: " + header.getAlgorithm());
+    }
+    return key;
+  }
+
+  @Override
+  public List<Map<String, Object>> getPublicJwks() {
+    return Collections.emptyList();
+  }
+}
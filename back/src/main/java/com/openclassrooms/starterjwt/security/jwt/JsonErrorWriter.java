@@ -0,0 +1,64 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Streams the {status, error, message, path} error body straight to the response. The factory is
+ * shared and field names and reason phrases are encoded once, so a rejected request allocates no
+ * mapper, map or intermediate string.
+ */
+public final class JsonErrorWriter {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final SerializedString STATUS = new SerializedString("status");
+  private static final SerializedString ERROR = new SerializedString("error");
+  private static final SerializedString MESSAGE = new SerializedString("message");
+  private static final SerializedString PATH = new SerializedString("path");
+
+  public static final Template UNAUTHORIZED = new Template(HttpStatus.UNAUTHORIZED);
+
+  private JsonErrorWriter() {
+  }
+
+  public static void write(HttpServletResponse response, Template template, String message, String path)
+      throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setStatus(template.status);
+
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(response.getOutputStream())) {
+      generator.writeStartObject();
+      generator.writeFieldName(STATUS);
+      generator.writeNumber(template.status);
+      generator.writeFieldName(ERROR);
+      generator.writeString(template.error);
+      generator.writeFieldName(MESSAGE);
+      generator.writeString(message);
+      generator.writeFieldName(PATH);
+      generator.writeString(path);
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Pre-encoded status code and reason phrase of an error response.
+   */
+  public static final class Template {
+    private final int status;
+
+    private final SerializedString error;
+
+    public Template(HttpStatus status) {
+      this.status = status.value();
+      this.error = new SerializedString(status.getReasonPhrase());
+    }
+  }
+}
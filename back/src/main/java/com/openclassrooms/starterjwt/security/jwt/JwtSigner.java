@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.security.Key;
+import java.util.List;
+import java.util.Map;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+
+/**
+ * Signs the tokens issued by {@link JwtUtils} and resolves the key used to verify them.
+ */
+public interface JwtSigner {
+
+  JwtBuilder sign(JwtBuilder builder);
+
+  /**
+   * Returns the key able to verify a token with the given header, or throws
+   * {@link io.jsonwebtoken.SignatureException} when the algorithm or key id is not accepted.
+   */
+  Key getVerificationKey(JwsHeader<?> header);
+
+  /**
+   * Public keys currently accepted for verification, in JWK format.
+   */
+  List<Map<String, Object>> getPublicJwks();
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.file.Path;
+import java.time.Clock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JwtSignerConfig {
+
+  /**
+   * ES256 needs keys shared by every node: a key generated in one process would be unknown to the
+   * others and lost on restart, so startup fails without oc.app.jwtKeyDir.
+   */
+  @Bean
+  public JwtSigner jwtSigner(@Value("${oc.app.jwtAlgorithm:HS512}") String algorithm,
+      @Value("${oc.app.jwtSecret}") String jwtSecret,
+      @Value("${oc.app.jwtKeyDir:}") String keyDir,
+      @Value("${oc.app.jwtKeyReloadMs:60000}") long reloadMs) {
+    if ("ES256".equalsIgnoreCase(algorithm)) {
+      if (keyDir.isBlank()) {
+        throw new IllegalStateException("oc.app.jwtAlgorithm=ES256 requires oc.app.jwtKeyDir");
+      }
+      return new EcJwtKeyRing(Path.of(keyDir), reloadMs, Clock.systemUTC());
+    }
+    if (!"HS512".equalsIgnoreCase(algorithm)) {
+      throw new IllegalArgumentException("Unsupported oc.app.jwtAlgorithm: " + algorithm);
+    }
+    return new HmacJwtSigner(jwtSecret);
+  }
+}
@@ -1,6 +1,10 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import com.openclassrooms.starterjwt.security.jwt.JwtValidationResult.Status;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
@@ -16,44 +21,114 @@ import io.jsonwebtoken.*;
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-  @Value("${oc.app.jwtSecret}")
-  private String jwtSecret;
+  static final String CLAIM_USER_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
 
-  @Value("${oc.app.jwtExpirationMs}")
-  private int jwtExpirationMs;
+  private final JwtSigner jwtSigner;
+
+  private final int jwtExpirationMs;
+
+  // Built once on first use; a configured parser holds no per-parse state.
+  private volatile JwtParser jwtParser;
+
+  public JwtUtils(JwtSigner jwtSigner, @Value("${oc.app.jwtExpirationMs}") int jwtExpirationMs) {
+    this.jwtSigner = jwtSigner;
+    this.jwtExpirationMs = jwtExpirationMs;
+  }
 
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-    return Jwts.builder()
+    return jwtSigner.sign(Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_USER_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, Boolean.TRUE.equals(userPrincipal.getAdmin()))
         .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs)))
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return getJwtParser().parseClaimsJws(token).getBody().getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseJwtToken(authToken).isValid();
+  }
+
+  /**
+   * Verifies the signature and decodes the claims in a single pass. Failures are only logged at
+   * debug level; callers report them through {@link AuthFailureLogger}.
+   */
+  public JwtValidationResult parseJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      Claims claims = getJwtParser().parseClaimsJws(authToken).getBody();
+      return JwtValidationResult.valid(claims);
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
+      logger.debug("Invalid JWT signature: {}", e.getMessage());
+      return JwtValidationResult.invalid(Status.INVALID_SIGNATURE, e.getMessage());
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      logger.debug("Invalid JWT token: {}", e.getMessage());
+      return JwtValidationResult.invalid(Status.MALFORMED, e.getMessage());
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      logger.debug("JWT token is expired: {}", e.getMessage());
+      return JwtValidationResult.invalid(Status.EXPIRED, e.getMessage());
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      logger.debug("JWT token is unsupported: {}", e.getMessage());
+      return JwtValidationResult.invalid(Status.UNSUPPORTED, e.getMessage());
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      logger.debug("JWT claims string is empty: {}", e.getMessage());
+      return JwtValidationResult.invalid(Status.EMPTY, e.getMessage());
+    }
+  }
+
+  /**
+   * Rebuilds the principal from the identity claims of a valid token, without touching the database.
+   * Returns null when the token lacks those claims or was issued more than maxStalenessMs ago,
+   * in which case the caller should refresh the principal from the database.
+   */
+  public UserDetailsImpl getUserDetailsFromJwtToken(JwtValidationResult token, long maxStalenessMs) {
+    if (!token.isValid() || token.getIssuedAt() == null
+        || token.getIssuedAt().plusMillis(maxStalenessMs).isBefore(Instant.now())) {
+      return null;
+    }
+
+    Map<String, Object> claims = token.getClaims();
+    if (!(claims.get(CLAIM_USER_ID) instanceof Number id)) {
+      return null;
     }
 
-    return false;
+    return UserDetailsImpl
+        .builder()
+        .id(id.longValue())
+        .username(token.getSubject())
+        .firstName((String) claims.get(CLAIM_FIRST_NAME))
+        .lastName((String) claims.get(CLAIM_LAST_NAME))
+        .admin(Boolean.TRUE.equals(claims.get(CLAIM_ADMIN)))
+        .build();
+  }
+
+  public List<Map<String, Object>> getPublicJwks() {
+    return jwtSigner.getPublicJwks();
+  }
+
+  private JwtParser getJwtParser() {
+    JwtParser parser = jwtParser;
+    if (parser == null) {
+      JwtSigner signer = jwtSigner;
+      parser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+        @Override
+        public Key resolveSigningKey(@SuppressWarnings("rawtypes") JwsHeader header, Claims claims) {
+          return signer.getVerificationKey(header);
+        }
+      });
+      jwtParser = parser;
+    }
+    return parser;
   }
 }
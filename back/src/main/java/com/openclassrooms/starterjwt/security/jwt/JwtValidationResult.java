@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+import io.jsonwebtoken.Claims;
+
+import lombok.Getter;
+
+/**
+ * Immutable outcome of a single JWT parse: either valid, with its subject, expiry and claims,
+ * or the reason why the token was rejected.
+ */
+@Getter
+public final class JwtValidationResult {
+
+  public enum Status {
+    VALID,
+    INVALID_SIGNATURE,
+    MALFORMED,
+    EXPIRED,
+    UNSUPPORTED,
+    EMPTY
+  }
+
+  private final Status status;
+
+  private final String subject;
+
+  private final Instant issuedAt;
+
+  private final Instant expiration;
+
+  private final Map<String, Object> claims;
+
+  private final String message;
+
+  private JwtValidationResult(Status status, String subject, Instant issuedAt, Instant expiration,
+      Map<String, Object> claims, String message) {
+    this.status = status;
+    this.subject = subject;
+    this.issuedAt = issuedAt;
+    this.expiration = expiration;
+    this.claims = claims;
+    this.message = message;
+  }
+
+  static JwtValidationResult valid(Claims claims) {
+    return new JwtValidationResult(
+        Status.VALID,
+        claims.getSubject(),
+        claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+        claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+        Collections.unmodifiableMap(claims),
+        null);
+  }
+
+  static JwtValidationResult invalid(Status status, String message) {
+    return new JwtValidationResult(status, null, null, null, Collections.emptyMap(), message);
+  }
+
+  public boolean isValid() {
+    return status == Status.VALID;
+  }
+}
@@ -0,0 +1,147 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.events.UserChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of already verified tokens, keyed by the SHA-256 digest of the compact token so
+ * repeat requests skip the signature check and claims decoding. An entry never outlives the exp
+ * claim of its token and is dropped as soon as its user changes or is deleted. The digests are
+ * indexed by the user id claim, which survives an email change, so revoking costs as many lookups
+ * as that user has cached tokens; a token without that claim is never cached.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final Cache<ByteBuffer, JwtValidationResult> cache;
+
+  private final Map<Long, Set<ByteBuffer>> digestsByUserId = new ConcurrentHashMap<>();
+
+  public VerifiedTokenCache(@Value("${oc.app.verifiedTokenCacheMaxSize:100000}") long maxSize,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new ExpireAtTokenExpiration())
+        // inline, so the user index never lags behind the cache
+        .executor(Runnable::run)
+        .removalListener((ByteBuffer key, JwtValidationResult result, RemovalCause cause) -> {
+          if (cause != RemovalCause.REPLACED && key != null && result != null) {
+            unindex(userId(result), key);
+          }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+  }
+
+  public JwtValidationResult get(String token) {
+    ByteBuffer key = digest(token);
+    JwtValidationResult result = cache.getIfPresent(key);
+    if (result != null && !result.getExpiration().isAfter(Instant.now())) {
+      cache.invalidate(key);
+      return null;
+    }
+    return result;
+  }
+
+  public void put(String token, JwtValidationResult result) {
+    Long userId = userId(result);
+    if (!result.isValid() || result.getExpiration() == null || userId == null) {
+      return;
+    }
+    ByteBuffer key = digest(token);
+    digestsByUserId.compute(userId, (id, digests) -> {
+      Set<ByteBuffer> indexed = digests != null ? digests : ConcurrentHashMap.newKeySet();
+      indexed.add(key);
+      return indexed;
+    });
+    cache.put(key, result);
+    // The user may have changed between indexing and caching, taking the index entry with it
+    if (!digestsByUserId.getOrDefault(userId, Set.of()).contains(key)) {
+      cache.invalidate(key);
+    }
+  }
+
+  public void invalidate(String token) {
+    cache.invalidate(digest(token));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.getId() == null) {
+      return;
+    }
+    Set<ByteBuffer> digests = digestsByUserId.remove(event.getId());
+    if (digests != null) {
+      cache.invalidateAll(digests);
+    }
+  }
+
+  private void unindex(Long userId, ByteBuffer key) {
+    if (userId != null) {
+      digestsByUserId.computeIfPresent(userId, (id, digests) -> {
+        digests.remove(key);
+        return digests.isEmpty() ? null : digests;
+      });
+    }
+  }
+
+  private static Long userId(JwtValidationResult result) {
+    return result.getClaims().get(JwtUtils.CLAIM_USER_ID) instanceof Number id ? id.longValue() : null;
+  }
+
+  private static ByteBuffer digest(String token) {
+    try {
+      return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class ExpireAtTokenExpiration implements Expiry<ByteBuffer, JwtValidationResult> {
+    @Override
+    public long expireAfterCreate(ByteBuffer key, JwtValidationResult value, long currentTime) {
+      return Math.max(0, Duration.between(Instant.now(), value.getExpiration()).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(ByteBuffer key, JwtValidationResult value, long currentTime,
+        long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(ByteBuffer key, JwtValidationResult value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+/**
+ * Token-bucket throttling of login attempts, keyed by email and by client IP, checked before any
+ * password verification. Each bucket is updated with a compare-and-set loop, so no lock is held;
+ * buckets live in bounded caches and are dropped once idle. Repeated failures additionally block
+ * the account for an exponentially growing delay, reset by a successful login; on the IP side, where
+ * many users may share an address, a failure only costs one extra token.
+ */
+@Component
+public class LoginThrottle {
+  private final Limits emailLimits;
+
+  private final Limits ipLimits;
+
+  private final long backoffBaseNanos;
+
+  private final long backoffMaxNanos;
+
+  private final LongSupplier nanoTime;
+
+  private final Cache<String, Bucket> emailBuckets;
+
+  private final Cache<String, Bucket> ipBuckets;
+
+  @Autowired
+  public LoginThrottle(@Value("${oc.app.loginThrottleEmailCapacity:5}") int emailCapacity,
+      @Value("${oc.app.loginThrottleIpCapacity:20}") int ipCapacity,
+      @Value("${oc.app.loginThrottleRefillPeriodMs:60000}") long refillPeriodMs,
+      @Value("${oc.app.loginThrottleMaxKeys:100000}") long maxKeys,
+      @Value("${oc.app.loginThrottleIdleMs:900000}") long idleMs,
+      @Value("${oc.app.loginThrottleBackoffBaseMs:1000}") long backoffBaseMs,
+      @Value("${oc.app.loginThrottleBackoffMaxMs:300000}") long backoffMaxMs) {
+    this(emailCapacity, ipCapacity, refillPeriodMs, maxKeys, idleMs, backoffBaseMs, backoffMaxMs, System::nanoTime);
+  }
+
+  LoginThrottle(int emailCapacity, int ipCapacity, long refillPeriodMs, long maxKeys, long idleMs,
+      long backoffBaseMs, long backoffMaxMs, LongSupplier nanoTime) {
+    long refillPeriodNanos = TimeUnit.MILLISECONDS.toNanos(refillPeriodMs);
+    this.emailLimits = new Limits(emailCapacity, (double) emailCapacity / refillPeriodNanos);
+    this.ipLimits = new Limits(ipCapacity, (double) ipCapacity / refillPeriodNanos);
+    this.backoffBaseNanos = TimeUnit.MILLISECONDS.toNanos(backoffBaseMs);
+    this.backoffMaxNanos = TimeUnit.MILLISECONDS.toNanos(backoffMaxMs);
+    this.nanoTime = nanoTime;
+    this.emailBuckets = buildCache(maxKeys, idleMs, nanoTime);
+    this.ipBuckets = buildCache(maxKeys, idleMs, nanoTime);
+  }
+
+  /**
+   * Consumes one attempt for the email and the client IP, or throws {@link TooManyRequestsException}.
+   * A rejected attempt costs nothing: the email bucket is only debited once the IP bucket admitted
+   * it, and the IP token is handed back if the email bucket then refuses.
+   */
+  public void acquire(String email, String clientIp) {
+    long now = nanoTime.getAsLong();
+    Bucket ipBucket = bucket(ipBuckets, clientIp, ipLimits, now);
+    Bucket emailBucket = bucket(emailBuckets, normalize(email), emailLimits, now);
+    long ipWait = ipBucket.tryAcquire(now);
+    if (ipWait > 0) {
+      throw tooManyRequests(Math.max(ipWait, emailBucket.waitNanos(now)));
+    }
+    long emailWait = emailBucket.tryAcquire(now);
+    if (emailWait > 0) {
+      ipBucket.refund(now);
+      throw tooManyRequests(emailWait);
+    }
+  }
+
+  public void recordFailure(String email, String clientIp) {
+    long now = nanoTime.getAsLong();
+    bucket(ipBuckets, clientIp, ipLimits, now).penalize(now);
+    bucket(emailBuckets, normalize(email), emailLimits, now).recordFailure(now, backoffBaseNanos, backoffMaxNanos);
+  }
+
+  public void recordSuccess(String email) {
+    Bucket bucket = emailBuckets.getIfPresent(normalize(email));
+    if (bucket != null) {
+      bucket.recordSuccess();
+    }
+  }
+
+  public long estimatedSize() {
+    return emailBuckets.estimatedSize() + ipBuckets.estimatedSize();
+  }
+
+  private static Bucket bucket(Cache<String, Bucket> buckets, String key, Limits limits, long now) {
+    return buckets.get(key == null ? "" : key, k -> new Bucket(limits, now));
+  }
+
+  private static TooManyRequestsException tooManyRequests(long waitNanos) {
+    return new TooManyRequestsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+  }
+
+  private static String normalize(String email) {
+    return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static Cache<String, Bucket> buildCache(long maxKeys, long idleMs, LongSupplier nanoTime) {
+    return Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        .expireAfterAccess(Duration.ofMillis(idleMs))
+        .ticker(nanoTime::getAsLong)
+        .executor(Runnable::run)
+        .build();
+  }
+
+  private record Limits(int capacity, double tokensPerNano) {
+  }
+
+  private record State(double tokens, long refilledAt, int failures, long blockedUntil) {
+  }
+
+  static final class Bucket {
+    private final Limits limits;
+
+    private final AtomicReference<State> state;
+
+    private Bucket(Limits limits, long now) {
+      this.limits = limits;
+      this.state = new AtomicReference<>(new State(limits.capacity(), now, 0, now));
+    }
+
+    /**
+     * Returns 0 when a token was taken, otherwise the nanoseconds to wait before retrying.
+     */
+    private long tryAcquire(long now) {
+      while (true) {
+        State current = state.get();
+        long waitNanos = waitNanos(current, now);
+        if (waitNanos > 0) {
+          return waitNanos;
+        }
+        if (state.compareAndSet(current,
+            new State(tokensAt(current, now) - 1, now, current.failures(), current.blockedUntil()))) {
+          return 0;
+        }
+      }
+    }
+
+    /**
+     * Same answer as {@link #tryAcquire} without taking the token.
+     */
+    private long waitNanos(long now) {
+      return waitNanos(state.get(), now);
+    }
+
+    private long waitNanos(State current, long now) {
+      if (now - current.blockedUntil() < 0) {
+        return current.blockedUntil() - now;
+      }
+      double tokens = tokensAt(current, now);
+      return tokens < 1 ? (long) Math.ceil((1 - tokens) / limits.tokensPerNano()) : 0;
+    }
+
+    private double tokensAt(State current, long now) {
+      return Math.min(limits.capacity(), current.tokens() + (now - current.refilledAt()) * limits.tokensPerNano());
+    }
+
+    private void refund(long now) {
+      while (true) {
+        State current = state.get();
+        if (state.compareAndSet(current, new State(Math.min(limits.capacity(), tokensAt(current, now) + 1), now,
+            current.failures(), current.blockedUntil()))) {
+          return;
+        }
+      }
+    }
+
+    private void penalize(long now) {
+      while (true) {
+        State current = state.get();
+        double tokens = tokensAt(current, now);
+        if (state.compareAndSet(current,
+            new State(Math.max(0, tokens - 1), now, current.failures(), current.blockedUntil()))) {
+          return;
+        }
+      }
+    }
+
+    private void recordFailure(long now, long backoffBaseNanos, long backoffMaxNanos) {
+      while (true) {
+        State current = state.get();
+        int failures = current.failures() + 1;
+        long backoff = Math.min(backoffMaxNanos, backoffBaseNanos << Math.min(failures - 1, 20));
+        if (state.compareAndSet(current,
+            new State(current.tokens(), current.refilledAt(), failures, now + backoff))) {
+          return;
+        }
+      }
+    }
+
+    private void recordSuccess() {
+      while (true) {
+        State current = state.get();
+        if (current.failures() == 0
+            || state.compareAndSet(current, new State(current.tokens(), current.refilledAt(), 0, current.refilledAt()))) {
+          return;
+        }
+      }
+    }
+  }
+}
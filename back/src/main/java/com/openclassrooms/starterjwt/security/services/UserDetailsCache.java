@@ -0,0 +1,106 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.events.UserChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded (W-TinyLFU) cache of the DB-backed principals used by AuthTokenFilter, keyed by email.
+ * Hit, miss and eviction counters are published as the "userDetails" cache metrics. The emails
+ * cached for each user id are indexed, so a change to a user, including its email, drops only that
+ * user's entries.
+ */
+@Component
+public class UserDetailsCache {
+  private final Cache<String, UserDetails> cache;
+
+  private final Map<Long, Set<String>> emailsByUserId = new ConcurrentHashMap<>();
+
+  public UserDetailsCache(@Value("${oc.app.userDetailsCacheMaxSize:10000}") long maxSize,
+      @Value("${oc.app.userDetailsCacheTtlMs:60000}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttlMs))
+        // evictions are cheap; running them inline keeps the counters and the index exact
+        .executor(Runnable::run)
+        .removalListener((String email, UserDetails userDetails, RemovalCause cause) -> {
+          if (cause != RemovalCause.REPLACED && email != null) {
+            unindex(userId(userDetails), email);
+          }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+  }
+
+  public UserDetails get(String email, Function<String, UserDetails> loader) {
+    boolean[] loaded = new boolean[1];
+    UserDetails userDetails = cache.get(email, key -> {
+      loaded[0] = true;
+      UserDetails loadedDetails = loader.apply(key);
+      Long userId = userId(loadedDetails);
+      if (userId != null) {
+        emailsByUserId.compute(userId, (id, emails) -> {
+          Set<String> indexed = emails != null ? emails : ConcurrentHashMap.newKeySet();
+          indexed.add(key);
+          return indexed;
+        });
+      }
+      return loadedDetails;
+    });
+    // The user may have changed while it was loaded, taking the index entry with it
+    Long userId = userId(userDetails);
+    if (loaded[0] && userId != null && !emailsByUserId.getOrDefault(userId, Set.of()).contains(email)) {
+      cache.invalidate(email);
+    }
+    return userDetails;
+  }
+
+  public void invalidate(String email) {
+    cache.invalidate(email);
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    invalidate(event.getEmail());
+    // The email itself may have changed, leaving the previous key behind.
+    Set<String> emails = event.getId() != null ? emailsByUserId.remove(event.getId()) : null;
+    if (emails != null) {
+      cache.invalidateAll(emails);
+    }
+  }
+
+  private void unindex(Long userId, String email) {
+    if (userId != null) {
+      emailsByUserId.computeIfPresent(userId, (id, emails) -> {
+        emails.remove(email);
+        return emails.isEmpty() ? null : emails;
+      });
+    }
+  }
+
+  private static Long userId(UserDetails userDetails) {
+    return userDetails instanceof UserDetailsImpl user ? user.getId() : null;
+  }
+}
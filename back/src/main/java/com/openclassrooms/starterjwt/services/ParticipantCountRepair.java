@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Re-derives SESSIONS.participant_count from PARTICIPATE, walking the sessions by id in batches.
+ * Each batch is its own short transaction and only rewrites the rows that drifted, e.g. after a
+ * manual fix in the database.
+ */
+@Service
+@Log4j2
+public class ParticipantCountRepair {
+    private final SessionRepository sessionRepository;
+
+    private final int batchSize;
+
+    public ParticipantCountRepair(SessionRepository sessionRepository,
+                                  @Value("${oc.app.participantCountRepairBatchSize:1000}") int batchSize) {
+        this.sessionRepository = sessionRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of sessions whose count was fixed.
+     */
+    @Scheduled(initialDelayString = "${oc.app.participantCountRepairIntervalMs:86400000}",
+            fixedDelayString = "${oc.app.participantCountRepairIntervalMs:86400000}")
+    public int repair() {
+        int repaired = 0;
+        Long after = 0L;
+        List<Long> ids;
+        do {
+            ids = this.sessionRepository.findIdsAfter(after, PageRequest.of(0, this.batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            repaired += this.sessionRepository.recountParticipants(ids, LocalDateTime.now());
+            after = ids.get(ids.size() - 1);
+        } while (ids.size() == this.batchSize);
+
+        if (repaired > 0) {
+            log.warn("Repaired the participant count of {} sessions", repaired);
+        }
+        return repaired;
+    }
+}
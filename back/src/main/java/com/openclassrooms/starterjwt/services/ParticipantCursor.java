@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the participants of a session, ordered by user id. Clients only see it as an
+ * opaque base64url token.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ParticipantCursor {
+    private final Long userId;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(userId.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static ParticipantCursor decode(String token) {
+        try {
+            return new ParticipantCursor(Long.valueOf(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+}
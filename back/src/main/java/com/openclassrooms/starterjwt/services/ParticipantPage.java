@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of the participant ids of a session; next is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class ParticipantPage {
+    private final List<Long> userIds;
+
+    private final ParticipantCursor next;
+}
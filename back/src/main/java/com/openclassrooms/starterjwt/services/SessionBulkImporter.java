@@ -0,0 +1,257 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionBulkResult;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates or updates sessions from a JSON array read token by token. Updates change the session
+ * fields and teacher only; their users are ignored, as with PUT, and a raised capacity seats
+ * waitlisted users. Items are validated as they
+ * arrive and written in chunks: each chunk resolves its teachers, participants and updated
+ * sessions with one query apiece, is flushed as JDBC batches, then detached so only one chunk
+ * is held in memory. The whole import is one transaction; only the ids of the written sessions
+ * are kept until it ends, to re-stamp them just before commit.
+ */
+@Service
+public class SessionBulkImporter {
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final SessionMapper sessionMapper;
+
+    private final SessionRepository sessionRepository;
+
+    private final TeacherRepository teacherRepository;
+
+    private final UserRepository userRepository;
+
+    private final EntityManager entityManager;
+
+    private final SessionEnrollment sessionEnrollment;
+
+    private final int chunkSize;
+
+    public SessionBulkImporter(ObjectMapper objectMapper,
+                               Validator validator,
+                               SessionMapper sessionMapper,
+                               SessionRepository sessionRepository,
+                               TeacherRepository teacherRepository,
+                               UserRepository userRepository,
+                               EntityManager entityManager,
+                               SessionEnrollment sessionEnrollment,
+                               @Value("${oc.app.sessionBulkChunkSize:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.sessionMapper = sessionMapper;
+        this.sessionRepository = sessionRepository;
+        this.teacherRepository = teacherRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.sessionEnrollment = sessionEnrollment;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns one result per array element, in input order. Invalid items are reported and skipped;
+     * malformed JSON rejects the whole import.
+     */
+    @Transactional
+    public List<SessionBulkResult> importSessions(InputStream input) throws IOException {
+        List<SessionBulkResult> results = new ArrayList<>();
+        List<Item> chunk = new ArrayList<>(this.chunkSize);
+        List<Long> written = new ArrayList<>();
+
+        try (JsonParser parser = this.objectMapper.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of sessions");
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new BadRequestException("Unterminated JSON array of sessions");
+                }
+                int index = results.size();
+                SessionDto sessionDto = this.objectMapper.readValue(parser, SessionDto.class);
+                results.add(null);
+
+                List<String> errors = validate(sessionDto);
+                if (!errors.isEmpty()) {
+                    results.set(index, new SessionBulkResult(index, sessionDto.getId(), SessionBulkResult.Status.INVALID, errors));
+                    continue;
+                }
+                chunk.add(new Item(index, sessionDto));
+                if (chunk.size() == this.chunkSize) {
+                    write(chunk, results, written);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed session array: " + e.getOriginalMessage());
+        }
+
+        write(chunk, results, written);
+        restamp(written);
+        return results;
+    }
+
+    /**
+     * Each chunk was stamped when it was flushed, possibly long before this transaction commits;
+     * delta sync only waits sessionChangesSettleMs for a commit. Moving every written row to now
+     * leaves just these updates and the commit inside that window.
+     */
+    private void restamp(List<Long> written) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < written.size(); from += this.chunkSize) {
+            this.sessionRepository.restamp(written.subList(from, Math.min(from + this.chunkSize, written.size())), now);
+        }
+    }
+
+    private List<String> validate(SessionDto sessionDto) {
+        Set<ConstraintViolation<SessionDto>> violations = this.validator.validate(sessionDto);
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void write(List<Item> chunk, List<SessionBulkResult> results, List<Long> written) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Teacher> teachers = byId(this.teacherRepository.findAllById(
+                ids(chunk, item -> Collections.singletonList(item.dto.getTeacher_id()))), Teacher::getId);
+        // Participants are only read for creates, updates leave them as stored
+        Set<Long> userIds = ids(chunk, item -> item.dto.getId() == null ? item.dto.getUsers() : null);
+        Map<Long, User> users = userIds.isEmpty()
+                ? Collections.emptyMap()
+                : byId(this.userRepository.findAllById(userIds), User::getId);
+        // Updated sessions are loaded up front, one query per chunk, and changed in place
+        Set<Long> sessionIds = ids(chunk, item -> Collections.singletonList(item.dto.getId()));
+        Map<Long, Session> existing = sessionIds.isEmpty()
+                ? Collections.emptyMap()
+                : byId(this.sessionRepository.findAllById(sessionIds), Session::getId);
+
+        List<Item> accepted = new ArrayList<>();
+        List<Session> sessions = new ArrayList<>();
+        List<Long> raisedCapacity = new ArrayList<>();
+        for (Item item : chunk) {
+            SessionDto sessionDto = item.dto;
+            List<String> errors = new ArrayList<>();
+            if (!teachers.containsKey(sessionDto.getTeacher_id())) {
+                errors.add("Unknown teacher id: " + sessionDto.getTeacher_id());
+            }
+            List<Long> participantIds = new ArrayList<>(new LinkedHashSet<>(
+                    sessionDto.getId() == null && sessionDto.getUsers() != null ? sessionDto.getUsers() : Collections.emptyList()));
+            List<Long> unknownUsers = participantIds.stream().filter(id -> !users.containsKey(id)).collect(Collectors.toList());
+            if (!unknownUsers.isEmpty()) {
+                errors.add("Unknown user ids: " + unknownUsers);
+            }
+            if (sessionDto.getCapacity() != null && participantIds.size() > sessionDto.getCapacity()) {
+                errors.add("More participants than capacity: " + sessionDto.getCapacity());
+            }
+            if (!errors.isEmpty()) {
+                results.set(item.index, new SessionBulkResult(item.index, sessionDto.getId(), SessionBulkResult.Status.INVALID, errors));
+                continue;
+            }
+            if (sessionDto.getId() != null && !existing.containsKey(sessionDto.getId())) {
+                results.set(item.index, new SessionBulkResult(item.index, sessionDto.getId(), SessionBulkResult.Status.NOT_FOUND,
+                        List.of("Unknown session id: " + sessionDto.getId())));
+                continue;
+            }
+
+            Session session;
+            if (sessionDto.getId() == null) {
+                session = this.sessionMapper.toEntityWithoutRelations(sessionDto);
+                session.setTeacher(teachers.get(sessionDto.getTeacher_id()));
+                session.setUsers(participantIds.stream().map(users::get).collect(Collectors.toCollection(ArrayList::new)));
+            } else {
+                // Same as SessionService.update: fields and teacher only, so an enrollment committed
+                // since the file was exported is kept
+                session = existing.get(sessionDto.getId());
+                Integer previousCapacity = session.getCapacity();
+                if (previousCapacity != null && (sessionDto.getCapacity() == null || sessionDto.getCapacity() > previousCapacity)) {
+                    raisedCapacity.add(session.getId());
+                }
+                session
+                        .setName(sessionDto.getName())
+                        .setDate(sessionDto.getDate())
+                        .setDescription(sessionDto.getDescription())
+                        .setTeacher(teachers.get(sessionDto.getTeacher_id()))
+                        .setCapacity(sessionDto.getCapacity());
+            }
+            accepted.add(item);
+            sessions.add(session);
+        }
+
+        List<Session> saved = this.sessionRepository.saveAll(sessions);
+        this.entityManager.flush();
+        this.entityManager.clear();
+        // The flushed updates hold the row locks promote() needs
+        raisedCapacity.forEach(this.sessionEnrollment::promote);
+
+        for (int i = 0; i < accepted.size(); i++) {
+            Item item = accepted.get(i);
+            SessionBulkResult.Status status = item.dto.getId() == null
+                    ? SessionBulkResult.Status.CREATED
+                    : SessionBulkResult.Status.UPDATED;
+            results.set(item.index, new SessionBulkResult(item.index, saved.get(i).getId(), status, Collections.emptyList()));
+            written.add(saved.get(i).getId());
+        }
+    }
+
+    private static Set<Long> ids(List<Item> chunk, Function<Item, List<Long>> extractor) {
+        return chunk.stream()
+                .map(extractor)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+
+    private static final class Item {
+        private final int index;
+
+        private final SessionDto dto;
+
+        private Item(int index, SessionDto dto) {
+            this.index = index;
+            this.dto = dto;
+        }
+    }
+}
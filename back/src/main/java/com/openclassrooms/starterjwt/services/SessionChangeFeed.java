@@ -0,0 +1,131 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.GoneException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Delta sync over the (updated_at, id) index and the tombstone log. Both feeds are read by keyset
+ * after the client watermark and stop at a settled bound a little in the past, so a transaction
+ * still committing with an older timestamp is not skipped. Each call costs two indexed range
+ * reads bounded by the page size, whatever the catalog size.
+ *
+ * <p>The bound holds only for writes that commit within sessionChangesSettleMs of stamping
+ * updated_at. Long transactions, such as bulk imports, must re-stamp their rows just before they
+ * commit (see {@link SessionRepository#restamp}).
+ */
+@Service
+@Log4j2
+public class SessionChangeFeed {
+    private final SessionRepository sessionRepository;
+
+    private final SessionDeletionRepository sessionDeletionRepository;
+
+    private final int pageSize;
+
+    private final Duration settle;
+
+    private final Duration retention;
+
+    private final Clock clock;
+
+    @Autowired
+    public SessionChangeFeed(SessionRepository sessionRepository,
+                             SessionDeletionRepository sessionDeletionRepository,
+                             @Value("${oc.app.sessionChangesPageSize:500}") int pageSize,
+                             @Value("${oc.app.sessionChangesSettleMs:2000}") long settleMs,
+                             @Value("${oc.app.sessionDeletionRetentionMs:2592000000}") long retentionMs) {
+        this(sessionRepository, sessionDeletionRepository, pageSize, settleMs, retentionMs, Clock.systemDefaultZone());
+    }
+
+    SessionChangeFeed(SessionRepository sessionRepository,
+                      SessionDeletionRepository sessionDeletionRepository,
+                      int pageSize,
+                      long settleMs,
+                      long retentionMs,
+                      Clock clock) {
+        this.sessionRepository = sessionRepository;
+        this.sessionDeletionRepository = sessionDeletionRepository;
+        this.pageSize = pageSize;
+        this.settle = Duration.ofMillis(settleMs);
+        this.retention = Duration.ofMillis(retentionMs);
+        this.clock = clock;
+    }
+
+    /**
+     * Changes after since, or the whole catalog when it is null. Throws GoneException when the
+     * tombstones the client would need have already been pruned; it must then sync from scratch.
+     */
+    public SessionChanges findChanges(SessionChangeToken since) {
+        LocalDateTime now = LocalDateTime.now(this.clock);
+        LocalDateTime until = now.minus(this.settle);
+        if (since == null) {
+            since = SessionChangeToken.initial(until);
+        } else if (since.getDeletedAt().isBefore(now.minus(this.retention))) {
+            throw new GoneException();
+        }
+
+        // One extra row tells whether another page follows
+        PageRequest page = PageRequest.of(0, this.pageSize + 1);
+        List<Session> sessions = this.sessionRepository.findChangedAfter(since.getUpdatedAt(), since.getSessionId(), until, page);
+        List<SessionDeletion> deletions = this.sessionDeletionRepository.findAfter(since.getDeletedAt(), since.getDeletionId(), until, page);
+
+        boolean moreSessions = sessions.size() > this.pageSize;
+        boolean moreDeletions = deletions.size() > this.pageSize;
+        if (moreSessions) {
+            sessions = sessions.subList(0, this.pageSize);
+        }
+        if (moreDeletions) {
+            deletions = deletions.subList(0, this.pageSize);
+        }
+
+        // A drained feed moves to the settled bound, so an idle feed does not age towards 410
+        LocalDateTime updatedAt = until;
+        Long sessionId = Long.MAX_VALUE;
+        if (moreSessions) {
+            Session last = sessions.get(sessions.size() - 1);
+            updatedAt = last.getUpdatedAt();
+            sessionId = last.getId();
+        }
+        LocalDateTime deletedAt = until;
+        Long deletionId = Long.MAX_VALUE;
+        if (moreDeletions) {
+            SessionDeletion last = deletions.get(deletions.size() - 1);
+            deletedAt = last.getDeletedAt();
+            deletionId = last.getSessionId();
+        }
+
+        return new SessionChanges(
+                sessions,
+                deletions.stream().map(SessionDeletion::getSessionId).collect(Collectors.toList()),
+                new SessionChangeToken(updatedAt, sessionId, deletedAt, deletionId),
+                moreSessions || moreDeletions);
+    }
+
+    public void recordDeletion(Long sessionId) {
+        this.sessionDeletionRepository.record(sessionId, LocalDateTime.now(this.clock));
+    }
+
+    @Scheduled(initialDelayString = "${oc.app.sessionDeletionPruneIntervalMs:3600000}",
+            fixedDelayString = "${oc.app.sessionDeletionPruneIntervalMs:3600000}")
+    public void pruneDeletions() {
+        int pruned = this.sessionDeletionRepository.deleteOlderThan(LocalDateTime.now(this.clock).minus(this.retention));
+        if (pruned > 0) {
+            log.info("Pruned {} session tombstones", pruned);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Delta sync watermark: the last (updatedAt, id) of the session feed and the last
+ * (deletedAt, sessionId) of the tombstone feed. Clients only see it as an opaque base64url token.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class SessionChangeToken {
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LocalDateTime updatedAt;
+
+    private final Long sessionId;
+
+    private final LocalDateTime deletedAt;
+
+    private final Long deletionId;
+
+    /**
+     * Start of a full sync: every session, and only tombstones written after the given bound.
+     */
+    public static SessionChangeToken initial(LocalDateTime deletionsAfter) {
+        return new SessionChangeToken(ORIGIN, 0L, deletionsAfter, Long.MAX_VALUE);
+    }
+
+    public String encode() {
+        String position = micros(updatedAt) + ":" + sessionId + ":" + micros(deletedAt) + ":" + deletionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static SessionChangeToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 4) {
+                throw new BadRequestException();
+            }
+            return new SessionChangeToken(fromMicros(Long.parseLong(parts[0])), Long.valueOf(parts[1]),
+                    fromMicros(Long.parseLong(parts[2])), Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException | ArithmeticException | java.time.DateTimeException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    // Timestamps are stored without zone, so they are encoded as-is against UTC
+    private static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000,
+                ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Sessions changed and deleted since a watermark; more is set when either list was cut at the
+ * page size and the client should ask again with next.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionChanges {
+    private final List<Session> sessions;
+
+    private final List<Long> deletedIds;
+
+    private final SessionChangeToken next;
+
+    private final boolean more;
+}
@@ -0,0 +1,122 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Seat admission and the FIFO waitlist. A seat is taken by one conditional update of the session
+ * participant_count, so a flash opening costs three short statements per admitted user and no count
+ * of the participants. Waitlist writes and promotions run under the session row lock, so a freed
+ * seat always goes to the head of the queue.
+ */
+@Service
+public class SessionEnrollment {
+    private final SessionRepository sessionRepository;
+
+    private final UserRepository userRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SessionEnrollment(SessionRepository sessionRepository,
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher) {
+        this.sessionRepository = sessionRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Returns true when the user got a seat and false when the session is full and the user was
+     * queued instead.
+     */
+    @Transactional
+    public boolean enroll(Long id, Long userId) {
+        boolean seated = this.sessionRepository.claimSeat(id, LocalDateTime.now()) == 1;
+        if (!seated) {
+            // Full, or a seat was freed after the update: decide again under the lock
+            if (this.sessionRepository.lockById(id).isEmpty()) {
+                throw new NotFoundException();
+            }
+            seated = this.sessionRepository.claimSeat(id, LocalDateTime.now()) == 1;
+        }
+
+        if (seated) {
+            // Rejecting rolls the seat back with the transaction
+            if (this.sessionRepository.insertParticipant(id, userId) == 0) {
+                throw rejection(id, userId);
+            }
+            // A queued user who enrolls once a seat is free leaves the queue
+            this.sessionRepository.deleteWaitlisted(id, userId);
+            this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.PARTICIPATED, id, userId));
+            return true;
+        }
+
+        if (this.sessionRepository.countParticipation(id, userId) > 0) {
+            throw new BadRequestException();
+        }
+        if (this.sessionRepository.insertWaitlisted(id, userId, LocalDateTime.now()) == 0) {
+            throw rejection(id, userId);
+        }
+        this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.WAITLISTED, id, userId));
+        return false;
+    }
+
+    /**
+     * Removes the user from the participants, handing the seat to the head of the waitlist, or
+     * from the waitlist. The session row is locked before PARTICIPATE or WAITLIST is touched, in
+     * the same order as enroll, so a concurrent join and leave cannot deadlock.
+     */
+    @Transactional
+    public void leave(Long id, Long userId) {
+        if (this.sessionRepository.lockById(id).isEmpty()) {
+            throw new NotFoundException();
+        }
+        if (this.sessionRepository.deleteParticipant(id, userId) == 1) {
+            this.sessionRepository.releaseSeat(id, LocalDateTime.now());
+            this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.UNPARTICIPATED, id, userId));
+            promote(id);
+            return;
+        }
+        if (this.sessionRepository.deleteWaitlisted(id, userId) == 1) {
+            this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.UNWAITLISTED, id, userId));
+            return;
+        }
+        throw new BadRequestException();
+    }
+
+    /**
+     * Seats waitlisted users in queue order while seats are left. The caller must hold the session
+     * row lock, e.g. through a prior update of the session. A queued user who cannot be inserted,
+     * already a participant or deleted, is dropped from the queue and the seat goes to the next one.
+     */
+    @Transactional
+    public void promote(Long id) {
+        Optional<Long> head = this.sessionRepository.findWaitlistHead(id);
+        while (head.isPresent() && this.sessionRepository.claimSeat(id, LocalDateTime.now()) == 1) {
+            Long userId = head.get();
+            this.sessionRepository.deleteWaitlisted(id, userId);
+            if (this.sessionRepository.insertParticipant(id, userId) == 1) {
+                this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.PARTICIPATED, id, userId));
+            } else {
+                this.sessionRepository.releaseSeat(id, LocalDateTime.now());
+            }
+            head = this.sessionRepository.findWaitlistHead(id);
+        }
+    }
+
+    private RuntimeException rejection(Long id, Long userId) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
+            return new NotFoundException();
+        }
+        return new BadRequestException();
+    }
+}
@@ -0,0 +1,167 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans session changes out to Server-Sent Events subscribers once they are committed. Idle
+ * connections are parked on the async servlet request and hold no thread; a subscriber with
+ * pending events is drained by a short-lived virtual thread. Each subscriber buffers at most
+ * bufferSize events, and one that falls further behind is disconnected rather than slowing the
+ * others down; EventSource clients reconnect and can catch up through the change feed. Events
+ * are serialized once and the same frame is written to every subscriber.
+ */
+@Service
+@Log4j2
+public class SessionEventBroadcaster implements DisposableBean {
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Executor executor;
+
+    private final int bufferSize;
+
+    private final long timeoutMs;
+
+    private final ObjectMapper objectMapper;
+
+    private final Counter dropped;
+
+    @Autowired
+    public SessionEventBroadcaster(@Value("${oc.app.sessionEventsBufferSize:256}") int bufferSize,
+                                   @Value("${oc.app.sessionEventsTimeoutMs:1800000}") long timeoutMs,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this(Executors.newVirtualThreadPerTaskExecutor(), bufferSize, timeoutMs, objectMapper, meterRegistry);
+    }
+
+    SessionEventBroadcaster(Executor executor, int bufferSize, long timeoutMs, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.objectMapper = objectMapper;
+        this.dropped = meterRegistry.counter("session.events.dropped");
+        meterRegistry.gaugeCollectionSize("session.events.subscribers", Tags.empty(), this.subscribers);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(this.timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+        emitter.onError(e -> this.subscribers.remove(subscriber));
+        this.subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return this.subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        String json;
+        try {
+            json = this.objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        publish(SseEmitter.event().name(event.getType().name()).data(json));
+    }
+
+    // Comments are ignored by EventSource but keep proxies from closing idle streams, and surface
+    // connections that died without a FIN
+    @Scheduled(initialDelayString = "${oc.app.sessionEventsHeartbeatMs:30000}",
+            fixedDelayString = "${oc.app.sessionEventsHeartbeatMs:30000}")
+    public void heartbeat() {
+        publish(SseEmitter.event().comment("heartbeat"));
+    }
+
+    private void publish(SseEmitter.SseEventBuilder builder) {
+        Set<DataWithMediaType> event = builder.build();
+        for (Subscriber subscriber : this.subscribers) {
+            if (!subscriber.offer(event)) {
+                drop(subscriber);
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (this.subscribers.remove(subscriber)) {
+            this.dropped.increment();
+            log.warn("Dropped a session events subscriber more than {} events behind", this.bufferSize);
+            // complete() waits for a send in progress, which is exactly what a slow consumer blocks
+            this.executor.execute(subscriber.emitter::complete);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (this.executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private boolean offer(Set<DataWithMediaType> event) {
+            if (!this.buffer.offer(event)) {
+                return false;
+            }
+            if (this.draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+            return true;
+        }
+
+        // At most one drain per subscriber, so events keep their order
+        private void drain() {
+            do {
+                Set<DataWithMediaType> event;
+                while ((event = this.buffer.poll()) != null) {
+                    try {
+                        this.emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        subscribers.remove(this);
+                        this.buffer.clear();
+                        return;
+                    }
+                }
+                this.draining.set(false);
+            } while (!this.buffer.isEmpty() && this.draining.compareAndSet(false, true));
+        }
+    }
+}
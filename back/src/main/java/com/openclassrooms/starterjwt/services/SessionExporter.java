@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the whole catalog as a JSON array, one keyset window of sessions at a time, with the same
+ * queries as the paged catalog in {@link SessionRepository}. Each window and its participant ids
+ * are read through a short-lived persistence context whose connection goes back to the pool before
+ * the window is written, so a slow client never pins a connection or a transaction. Sessions whose
+ * date changes during the export may be missed or written twice.
+ */
+@Service
+@Log4j2
+public class SessionExporter {
+    public static final int WINDOW_SIZE = 500;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final SessionMapper sessionMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter sessionWriter;
+
+    private final long timeoutNanos;
+
+    public SessionExporter(EntityManagerFactory entityManagerFactory,
+                           SessionMapper sessionMapper,
+                           ObjectMapper objectMapper,
+                           @Value("${oc.app.sessionExportTimeoutMs:300000}") long timeoutMs) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.sessionMapper = sessionMapper;
+        this.objectMapper = objectMapper;
+        // Flushing is done once per window rather than after every session
+        this.sessionWriter = objectMapper.writerFor(SessionDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * Returns the number of sessions written. Throws IOException, leaving the array unterminated,
+     * once the export has run longer than sessionExportTimeoutMs; the bound is checked between
+     * windows, so a client stalled inside one write is only cut off by the container. Without
+     * users, the participant ids are not read and each session carries participantCount only.
+     */
+    public int export(OutputStream output, boolean withUsers) throws IOException {
+        long started = System.nanoTime();
+        int count = 0;
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+
+            SessionCursor after = null;
+            List<SessionDto> window;
+            do {
+                if (System.nanoTime() - started > this.timeoutNanos) {
+                    log.warn("Session export aborted after {} sessions", count);
+                    throw new IOException("Session export exceeded its time limit");
+                }
+                window = readWindow(after, withUsers);
+                for (SessionDto sessionDto : window) {
+                    this.sessionWriter.writeValue(generator, sessionDto);
+                }
+                generator.flush();
+                count += window.size();
+                if (!window.isEmpty()) {
+                    SessionDto last = window.get(window.size() - 1);
+                    after = new SessionCursor(last.getDate(), last.getId());
+                }
+            } while (window.size() == WINDOW_SIZE);
+
+            generator.writeEndArray();
+        }
+        return count;
+    }
+
+    private List<SessionDto> readWindow(SessionCursor after, boolean withUsers) {
+        EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            TypedQuery<Session> query = after == null
+                    ? entityManager.createQuery(SessionRepository.CATALOG_FIRST_PAGE, Session.class)
+                    : entityManager.createQuery(SessionRepository.CATALOG_PAGE_AFTER, Session.class)
+                            .setParameter("date", after.getDate())
+                            .setParameter("id", after.getId());
+            List<Session> sessions = query
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setMaxResults(WINDOW_SIZE)
+                    .getResultList();
+
+            if (!withUsers) {
+                List<SessionDto> window = this.sessionMapper.toSummaryDto(sessions);
+                entityManager.getTransaction().commit();
+                return window;
+            }
+
+            Map<Long, List<Long>> participantIds = new HashMap<>();
+            if (!sessions.isEmpty()) {
+                List<?> rows = entityManager.createNativeQuery(SessionRepository.PARTICIPANT_IDS)
+                        .setParameter("sessionIds", sessions.stream().map(Session::getId).collect(Collectors.toList()))
+                        .getResultList();
+                for (Object row : rows) {
+                    Object[] columns = (Object[]) row;
+                    participantIds.computeIfAbsent(((Number) columns[0]).longValue(), id -> new ArrayList<>())
+                            .add(((Number) columns[1]).longValue());
+                }
+            }
+            List<SessionDto> window = this.sessionMapper.toDto(sessions, participantIds);
+            entityManager.getTransaction().commit();
+            return window;
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+}
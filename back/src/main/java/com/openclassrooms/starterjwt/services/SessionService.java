@@ -1,81 +1,279 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.CollectionVersion;
+import com.openclassrooms.starterjwt.repository.SessionParticipant;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Service
+@Log4j2
 public class SessionService {
     private final SessionRepository sessionRepository;
 
-    private final UserRepository userRepository;
+    private final SessionEnrollment sessionEnrollment;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final SessionChangeFeed sessionChangeFeed;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int participationMaxAttempts;
+
+    private final long participationRetryBackoffMs;
+
+    public SessionService(SessionRepository sessionRepository,
+                          SessionEnrollment sessionEnrollment,
+                          SessionChangeFeed sessionChangeFeed,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${oc.app.participationMaxAttempts:3}") int participationMaxAttempts,
+                          @Value("${oc.app.participationRetryBackoffMs:20}") long participationRetryBackoffMs) {
         this.sessionRepository = sessionRepository;
-        this.userRepository = userRepository;
+        this.sessionEnrollment = sessionEnrollment;
+        this.sessionChangeFeed = sessionChangeFeed;
+        this.eventPublisher = eventPublisher;
+        this.participationMaxAttempts = participationMaxAttempts;
+        this.participationRetryBackoffMs = participationRetryBackoffMs;
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        if (session.getCapacity() != null && session.getUsers() != null && session.getUsers().size() > session.getCapacity()) {
+            throw new BadRequestException("More participants than capacity: " + session.getCapacity());
+        }
+        Session created = save(session);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.CREATED, created.getId()));
+        return created;
     }
 
+    /**
+     * Deletes the session and leaves a tombstone for delta sync, atomically.
+     */
+    @Transactional
     public void delete(Long id) {
+        this.sessionChangeFeed.recordDeletion(id);
         this.sessionRepository.deleteById(id);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.DELETED, id));
     }
 
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    /**
+     * Returns up to limit sessions in (date, id) order, starting strictly after the cursor, or from
+     * the start when it is null.
+     */
+    public SessionPage findPage(SessionCursor after, int limit) {
+        // One extra row tells whether another page follows
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Session> sessions = after == null
+                ? this.sessionRepository.findAllByOrderByDateAscIdAsc(pageable)
+                : this.sessionRepository.findPageAfter(after.getDate(), after.getId(), pageable);
+
+        if (sessions.size() <= limit) {
+            return new SessionPage(sessions, null);
+        }
+        List<Session> page = sessions.subList(0, limit);
+        return new SessionPage(page, SessionCursor.of(page.get(limit - 1)));
+    }
+
+    /**
+     * Up to limit participant ids of the session in ascending order, strictly after the cursor or
+     * from the start when it is null. Throws NotFoundException when the session does not exist.
+     */
+    public ParticipantPage findParticipantPage(Long id, ParticipantCursor after, int limit) {
+        // One extra row tells whether another page follows
+        List<Long> userIds = this.sessionRepository.findParticipantIdsAfter(id, after == null ? 0L : after.getUserId(),
+                PageRequest.of(0, limit + 1));
+
+        // An empty page is the only one that can hide an unknown session
+        if (userIds.isEmpty() && !this.sessionRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+        if (userIds.size() <= limit) {
+            return new ParticipantPage(userIds, null);
+        }
+        List<Long> page = userIds.subList(0, limit);
+        return new ParticipantPage(page, new ParticipantCursor(page.get(limit - 1)));
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
-    public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
+    /**
+     * Last update time without loading the session; null when it does not exist.
+     */
+    public LocalDateTime getUpdatedAt(Long id) {
+        return this.sessionRepository.findUpdatedAtById(id).orElse(null);
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
-            throw new NotFoundException();
+    public CollectionVersion getCollectionVersion() {
+        return this.sessionRepository.findCollectionVersion();
+    }
+
+    /**
+     * Participant ids per session, read from the join table alone. Sessions without participants
+     * are absent from the map.
+     */
+    public Map<Long, List<Long>> getParticipantIds(Collection<Long> sessionIds) {
+        Map<Long, List<Long>> participants = new HashMap<>();
+        if (sessionIds.isEmpty()) {
+            return participants;
         }
+        for (SessionParticipant participant : this.sessionRepository.findParticipantIds(sessionIds)) {
+            participants.computeIfAbsent(participant.getSessionId(), id -> new ArrayList<>()).add(participant.getUserId());
+        }
+        return participants;
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if (alreadyParticipate) {
-            throw new BadRequestException();
+    /**
+     * Sessions the user takes part in, in catalog order, found from the user side of the join table.
+     */
+    public List<Session> findJoinedBy(Long userId) {
+        return this.sessionRepository.findJoinedBy(userId);
+    }
+
+    /**
+     * The subset of the given sessions the user takes part in.
+     */
+    public Set<Long> getJoinedSessionIds(Long userId, Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return new HashSet<>();
         }
+        return new HashSet<>(this.sessionRepository.findJoinedSessionIds(userId, sessionIds));
+    }
 
-        session.getUsers().add(user);
+    /**
+     * Updates the session fields and teacher only. Participants are left as stored: they change
+     * through participate and noLongerParticipate alone, so an edit cannot drop an enrollment
+     * committed since the client read the session. Raising the capacity seats waitlisted users.
+     */
+    @Transactional
+    public Session update(Long id, Session session) {
+        Session existing = this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+        Integer previousCapacity = existing.getCapacity();
+        existing.setName(session.getName())
+                .setDate(session.getDate())
+                .setDescription(session.getDescription())
+                .setTeacher(session.getTeacher())
+                .setCapacity(session.getCapacity());
+        Session updated = save(existing, true);
+        if (previousCapacity != null && (session.getCapacity() == null || session.getCapacity() > previousCapacity)) {
+            // The flushed update holds the session row lock
+            this.sessionEnrollment.promote(id);
+        }
+        this.eventPublisher.publishEvent(new SessionChangedEvent(SessionChangedEvent.Type.UPDATED, id));
+        return updated;
+    }
 
-        this.sessionRepository.save(session);
+    private Session save(Session session) {
+        return save(session, false);
     }
 
-    public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
-            throw new NotFoundException();
+    // A managed session is only written at flush, so flush inside the try to map the foreign key
+    private Session save(Session session, boolean flush) {
+        try {
+            Session saved = this.sessionRepository.save(session);
+            if (flush) {
+                this.sessionRepository.flush();
+            }
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // The teacher is only a reference, an unknown id fails on its foreign key; any other
+            // violation is not the client's teacher id and propagates as is
+            if (!isTeacherForeignKeyViolation(e)) {
+                throw e;
+            }
+            Long teacherId = session.getTeacher() != null ? session.getTeacher().getId() : null;
+            throw new BadRequestException("Unknown teacher id: " + teacherId);
         }
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if (!alreadyParticipate) {
+    private static boolean isTeacherForeignKeyViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("foreign key")
+                && message.toLowerCase(Locale.ROOT).contains("teacher_id");
+    }
+
+    /**
+     * Returns true when the user got a seat and false when the session was full and the user
+     * joined the waitlist. Not transactional on purpose: each attempt is its own transaction, so
+     * one that loses a lock can be retried from scratch.
+     */
+    public boolean participate(Long id, Long userId) {
+        try {
+            return retryOnLockFailure(() -> this.sessionEnrollment.enroll(id, userId));
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race against the same participation
             throw new BadRequestException();
         }
+    }
+
+    /**
+     * Frees the seat, which goes to the head of the waitlist, or leaves the waitlist.
+     */
+    public void noLongerParticipate(Long id, Long userId) {
+        retryOnLockFailure(() -> {
+            this.sessionEnrollment.leave(id, userId);
+            return null;
+        });
+    }
 
-        session.setUsers(
-                session.getUsers().stream().filter(
-                        user -> !user.getId().equals(userId)).collect(
-                                Collectors.toList()));
+    /**
+     * Runs an enrollment transaction again when the database gave up on a lock (deadlock or lock
+     * wait timeout), which happens when many users join the same session at once. Each retry
+     * waits a random time up to participationRetryBackoffMs, doubled per attempt, so the writers
+     * that failed together do not collide again. Throws ConflictException once
+     * participationMaxAttempts are spent.
+     */
+    private <T> T retryOnLockFailure(Supplier<T> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= this.participationMaxAttempts) {
+                    log.warn("Giving up on a participation write after {} attempts", attempt, e);
+                    throw new ConflictException();
+                }
+            }
+            backOff(attempt);
+        }
+    }
 
-        this.sessionRepository.save(session);
+    private void backOff(int attempt) {
+        if (this.participationRetryBackoffMs <= 0) {
+            return;
+        }
+        long bound = this.participationRetryBackoffMs << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException();
+        }
     }
 }
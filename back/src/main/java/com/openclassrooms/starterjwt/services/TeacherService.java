@@ -1,9 +1,11 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.CollectionVersion;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -21,4 +23,23 @@ public class TeacherService {
     public Teacher findById(Long id) {
         return this.teacherRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Last update time without loading the teacher; null when it does not exist.
+     */
+    public LocalDateTime getUpdatedAt(Long id) {
+        return this.teacherRepository.findUpdatedAtById(id).orElse(null);
+    }
+
+    public CollectionVersion getCollectionVersion() {
+        return this.teacherRepository.findCollectionVersion();
+    }
+
+    /**
+     * Uninitialized proxy for a teacher, enough to set the foreign key without a select. An
+     * unknown id surfaces as a constraint violation when the owning row is written.
+     */
+    public Teacher getReference(Long id) {
+        return this.teacherRepository.getReferenceById(id);
+    }
 }
@@ -1,9 +1,19 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 public class UserService {
     private final UserRepository userRepository;
@@ -19,4 +29,26 @@ public class UserService {
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Loads the given users in one query, in request order and without duplicates. Throws
+     * BadRequestException listing the ids that do not exist.
+     */
+    public List<User> findAllById(Collection<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (requested.contains(null)) {
+            throw new BadRequestException("Unknown user ids: [null]");
+        }
+
+        Map<Long, User> found = this.userRepository.findAllById(requested).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        if (found.size() < requested.size()) {
+            List<Long> unknown = requested.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+            throw new BadRequestException("Unknown user ids: " + unknown);
+        }
+        return requested.stream().map(found::get).collect(Collectors.toCollection(ArrayList::new));
+    }
 }
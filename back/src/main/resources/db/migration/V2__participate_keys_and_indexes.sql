@@ -0,0 +1,27 @@
+-- PARTICIPATE gets a composite primary key. The table is rebuilt so that
+-- duplicate or incomplete rows left by the old schema cannot block the key.
+CREATE TABLE `PARTICIPATE_NEW` (
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+
+INSERT INTO `PARTICIPATE_NEW` (`session_id`, `user_id`)
+SELECT DISTINCT `session_id`, `user_id` FROM `PARTICIPATE`
+WHERE `session_id` IS NOT NULL AND `user_id` IS NOT NULL;
+
+DROP TABLE `PARTICIPATE`;
+
+ALTER TABLE `PARTICIPATE_NEW` RENAME TO `PARTICIPATE`;
+
+-- Reverse lookup (sessions of a user); the primary key already covers session_id first.
+CREATE INDEX `idx_participate_user_id` ON `PARTICIPATE` (`user_id`);
+
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+
+-- Catalog keyset order is (date, id).
+CREATE INDEX `idx_sessions_date_id` ON `SESSIONS` (`date`, `id`);
+
+-- Declared by the User entity but missing from the baseline.
+CREATE UNIQUE INDEX `uk_users_email` ON `USERS` (`email`);
@@ -0,0 +1,13 @@
+-- Row per entity table for Hibernate's pooled table generator (see IdGenerators).
+-- The pooled optimizer reads next_val as the top of its first block of 50, so
+-- each row starts at MAX(id) + 50 and new ids continue right after existing rows.
+-- AUTO_INCREMENT stays on the id columns; explicit ids are simply accepted.
+CREATE TABLE `ID_GENERATORS` (
+  `name` VARCHAR(64) NOT NULL,
+  `next_val` BIGINT NOT NULL,
+  PRIMARY KEY (`name`)
+);
+
+INSERT INTO `ID_GENERATORS` (`name`, `next_val`) SELECT 'TEACHERS', COALESCE(MAX(`id`), 0) + 50 FROM `TEACHERS`;
+INSERT INTO `ID_GENERATORS` (`name`, `next_val`) SELECT 'SESSIONS', COALESCE(MAX(`id`), 0) + 50 FROM `SESSIONS`;
+INSERT INTO `ID_GENERATORS` (`name`, `next_val`) SELECT 'USERS', COALESCE(MAX(`id`), 0) + 50 FROM `USERS`;
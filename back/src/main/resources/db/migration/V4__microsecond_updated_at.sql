@@ -0,0 +1,5 @@
+-- ETags are derived from updated_at, so two changes within the same second must
+-- not share a value.
+ALTER TABLE `TEACHERS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+ALTER TABLE `SESSIONS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+ALTER TABLE `USERS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
@@ -0,0 +1,11 @@
+-- Delta sync reads sessions in (updated_at, id) order after a watermark.
+CREATE INDEX `idx_sessions_updated_at_id` ON `SESSIONS` (`updated_at`, `id`);
+
+-- Tombstones for deleted sessions, pruned once older than the sync retention.
+CREATE TABLE `SESSION_DELETIONS` (
+  `session_id` BIGINT NOT NULL,
+  `deleted_at` DATETIME(6) NOT NULL,
+  PRIMARY KEY (`session_id`)
+);
+
+CREATE INDEX `idx_session_deletions_deleted_at` ON `SESSION_DELETIONS` (`deleted_at`, `session_id`);
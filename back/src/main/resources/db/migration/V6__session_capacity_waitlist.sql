@@ -0,0 +1,19 @@
+-- Optional seat limit; seats_taken mirrors the PARTICIPATE rows so admission is one conditional
+-- update instead of a COUNT(*).
+ALTER TABLE `SESSIONS` ADD COLUMN `capacity` INT NULL;
+ALTER TABLE `SESSIONS` ADD COLUMN `seats_taken` INT NOT NULL DEFAULT 0;
+
+UPDATE `SESSIONS` SET `seats_taken` = (SELECT COUNT(*) FROM `PARTICIPATE` p WHERE p.`session_id` = `SESSIONS`.`id`);
+
+-- Users waiting for a seat, promoted in (queued_at, user_id) order.
+CREATE TABLE `WAITLIST` (
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `queued_at` DATETIME(6) NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+
+CREATE INDEX `idx_waitlist_session_queued_at` ON `WAITLIST` (`session_id`, `queued_at`, `user_id`);
+
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
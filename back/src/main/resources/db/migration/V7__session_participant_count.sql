@@ -0,0 +1,2 @@
+-- The seat counter doubles as the occupancy shown in list views.
+ALTER TABLE `SESSIONS` RENAME COLUMN `seats_taken` TO `participant_count`;
@@ -0,0 +1,2 @@
+-- The API and the entity accept descriptions of up to 2500 characters, as documented.
+ALTER TABLE `SESSIONS` MODIFY `description` VARCHAR(2500);
@@ -2,8 +2,10 @@ package com.openclassrooms.starterjwt;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("h2")
 public class SpringBootSecurityJwtApplicationTests {
 
 	@Test
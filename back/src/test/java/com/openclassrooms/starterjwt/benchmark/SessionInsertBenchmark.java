@@ -0,0 +1,124 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Benchmark JMH des insertions en masse via Hibernate, sur une base H2 en mode
+ * MySQL servie en TCP local.
+ *
+ * Une opération insère 20 utilisateurs et 50 sessions ayant chacune ces 20
+ * participants (1070 lignes) dans une seule transaction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 10, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class SessionInsertBenchmark {
+
+    private static final int USERS = 20;
+
+    private static final int SESSIONS = 50;
+
+    private Server server;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long sequence;
+
+    @Setup
+    public void setup() throws SQLException {
+        // Serveur TCP local : chaque requête coûte un aller-retour réseau, comme avec MySQL
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles("h2")
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:tcp://localhost:" + server.getPort()
+                                + "/mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1");
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM PARTICIPATE");
+        jdbcTemplate.update("DELETE FROM SESSIONS");
+        jdbcTemplate.update("DELETE FROM USERS WHERE email LIKE '%@benchmark.test'");
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public int insertSessionsWithParticipants() {
+        return transactionTemplate.execute(status -> {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                User user = new User("user" + (sequence++) + "@benchmark.test", "Last", "First", "pwd", false);
+                entityManager.persist(user);
+                users.add(user);
+            }
+            for (int i = 0; i < SESSIONS; i++) {
+                entityManager.persist(Session.builder()
+                        .name("Session " + i)
+                        .date(new Date())
+                        .description("Description")
+                        .users(new ArrayList<>(users))
+                        .build());
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return users.size();
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SessionInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
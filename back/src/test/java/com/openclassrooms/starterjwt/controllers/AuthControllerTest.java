@@ -1,24 +1,30 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
-import java.util.Optional;
+import java.util.Collections;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties.Jwt;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.Authentication;
 
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.LoginThrottle;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 public class AuthControllerTest {
@@ -26,12 +32,15 @@ public class AuthControllerTest {
     AuthenticationManager mockedAuthenticationManager = Mockito.mock(AuthenticationManager.class);
     JwtUtils mockedJwtUtils = Mockito.mock(JwtUtils.class);
     PasswordEncoder mockedPasswordEncoder = Mockito.mock(PasswordEncoder.class);
+    LoginThrottle mockedLoginThrottle = Mockito.mock(LoginThrottle.class);
+    MockHttpServletRequest request = new MockHttpServletRequest();
 
     AuthController classUnderTest = new AuthController(
             mockedAuthenticationManager,
             mockedPasswordEncoder,
             mockedJwtUtils,
-            mockedUserRepository);
+            mockedUserRepository,
+            mockedLoginThrottle);
 
     @Test
     public void testAuthenticateUser() {
@@ -63,15 +72,53 @@ public class AuthControllerTest {
                 .thenReturn("mocked-jwt-token");
 
         // When
-        ResponseEntity<?> response = classUnderTest.authenticateUser(loginRequest);
+        ResponseEntity<?> response = classUnderTest.authenticateUser(loginRequest, request);
 
         // Then
         Mockito.verify(mockedAuthenticationManager).authenticate(Mockito.any());
         Mockito.verify(mockedJwtUtils).generateJwtToken(Mockito.any());
-        Mockito.verify(mockedUserRepository).findByEmail(loginRequest.getEmail());
+        // le flag admin vient du principal, sans seconde requête
+        Mockito.verifyNoInteractions(mockedUserRepository);
+        Mockito.verify(mockedLoginThrottle).acquire("test@example.com", request.getRemoteAddr());
+        Mockito.verify(mockedLoginThrottle).recordSuccess("test@example.com");
         assertEquals(200, response.getStatusCode().value());
     }
 
+    /**
+     * Test d'une tentative de connexion refusée par la limitation : le mot de passe n'est pas vérifié.
+     */
+    @Test
+    public void testAuthenticateUserThrottled() {
+        // Given
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("testpassword");
+        Mockito.doThrow(new TooManyRequestsException(30))
+                .when(mockedLoginThrottle).acquire(Mockito.eq("test@example.com"), Mockito.any());
+
+        // When / Then
+        assertThrows(TooManyRequestsException.class, () -> classUnderTest.authenticateUser(loginRequest, request));
+        Mockito.verifyNoInteractions(mockedAuthenticationManager);
+    }
+
+    /**
+     * Test d'un mot de passe erroné : l'échec est comptabilisé pour l'email et l'IP.
+     */
+    @Test
+    public void testAuthenticateUserBadCredentialsRecordsFailure() {
+        // Given
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("wrong");
+        Mockito.when(mockedAuthenticationManager.authenticate(Mockito.any()))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // When / Then
+        assertThrows(BadCredentialsException.class, () -> classUnderTest.authenticateUser(loginRequest, request));
+        Mockito.verify(mockedLoginThrottle).recordFailure("test@example.com", request.getRemoteAddr());
+        Mockito.verify(mockedLoginThrottle, Mockito.never()).recordSuccess(Mockito.any());
+    }
+
     @Test
     public void testAuthenticateUserAdmin() {
         // Given
@@ -96,30 +143,19 @@ public class AuthControllerTest {
                 userDetails.getAuthorities() // authorities (peut être vide)
         );
 
-        User user = com.openclassrooms.starterjwt.models.User.builder()
-                .id(1L)
-                .email("admin@example.com")
-                .firstName("Admin")
-                .lastName("User")
-                .password("pwd")
-                .admin(true)
-                .build();
-
-        Mockito.when(mockedUserRepository.findByEmail(loginRequest.getEmail()))
-                .thenReturn(Optional.of(user));
-
         Mockito.when(mockedAuthenticationManager.authenticate(Mockito.any()))
                 .thenReturn(authentication);
         Mockito.when(mockedJwtUtils.generateJwtToken(Mockito.any()))
                 .thenReturn("mocked-jwt-token");
 
         // When
-        ResponseEntity<?> response = classUnderTest.authenticateUser(loginRequest);
+        ResponseEntity<?> response = classUnderTest.authenticateUser(loginRequest, request);
 
         // Then
         Mockito.verify(mockedAuthenticationManager).authenticate(Mockito.any());
         Mockito.verify(mockedJwtUtils).generateJwtToken(Mockito.any());
-        Mockito.verify(mockedUserRepository).findByEmail(loginRequest.getEmail());
+        // le flag admin vient du principal, sans seconde requête
+        Mockito.verifyNoInteractions(mockedUserRepository);
         assertEquals(200, response.getStatusCode().value());
         JwtResponse jwtResponse = (JwtResponse) response.getBody();
         assertEquals(true, jwtResponse.getAdmin());
@@ -171,4 +207,31 @@ public class AuthControllerTest {
         Mockito.verify(mockedUserRepository).existsByEmail(signupRequest.getEmail());
         assertEquals(400, response.getStatusCode().value());
     }
+
+    @Test
+    public void testJwks() {
+        // Given
+        Map<String, Object> jwk = Collections.singletonMap("kid", "key-1");
+        Mockito.when(mockedJwtUtils.getPublicJwks()).thenReturn(Collections.singletonList(jwk));
+
+        // When
+        ResponseEntity<?> response = classUnderTest.jwks();
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(Collections.singletonMap("keys", Collections.singletonList(jwk)), response.getBody());
+    }
+
+    @Test
+    public void testTooManyRequestsReturns429WithRetryAfter() {
+        // Given: le pool de hachage est saturé
+        TooManyRequestsException exception = new TooManyRequestsException(2);
+
+        // When
+        ResponseEntity<?> response = classUnderTest.tooManyRequests(exception);
+
+        // Then
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+    }
 }
@@ -1,21 +1,52 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.openclassrooms.starterjwt.dto.SessionBulkResult;
+import com.openclassrooms.starterjwt.dto.SessionChangesDto;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.ParticipantCursor;
+import com.openclassrooms.starterjwt.services.ParticipantPage;
+import com.openclassrooms.starterjwt.services.SessionBulkImporter;
+import com.openclassrooms.starterjwt.services.SessionChangeFeed;
+import com.openclassrooms.starterjwt.services.SessionChangeToken;
+import com.openclassrooms.starterjwt.services.SessionChanges;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionExporter;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
 
 public class SessionControllerTest {
     SessionMapper mockedSessionMapper = Mockito.mock(SessionMapper.class);
     SessionService mockedSessionService = Mockito.mock(SessionService.class);
+    SessionBulkImporter mockedSessionBulkImporter = Mockito.mock(SessionBulkImporter.class);
+    SessionExporter mockedSessionExporter = Mockito.mock(SessionExporter.class);
+    SessionChangeFeed mockedSessionChangeFeed = Mockito.mock(SessionChangeFeed.class);
+    SessionEventBroadcaster mockedSessionEventBroadcaster = Mockito.mock(SessionEventBroadcaster.class);
 
-    SessionController sessionController = new SessionController(mockedSessionService, mockedSessionMapper);
+    SessionController sessionController = new SessionController(mockedSessionService, mockedSessionMapper,
+            mockedSessionBulkImporter, mockedSessionExporter, mockedSessionChangeFeed,
+            mockedSessionEventBroadcaster, 20, 100, false, 200, 1000);
 
     @Test
     public void testFindById() {
@@ -26,7 +57,7 @@ public class SessionControllerTest {
         Mockito.when(mockedSessionService.getById(sessionId)).thenReturn(session);
 
         // When
-        ResponseEntity<?> response = sessionController.findById(sessionId.toString());
+        ResponseEntity<?> response = sessionController.findById(sessionId.toString(), true, webRequest());
 
         // Then
         Mockito.verify(mockedSessionService).getById(sessionId);
@@ -34,6 +65,34 @@ public class SessionControllerTest {
 
     }
 
+    @Test
+    public void testFindByIdWithCurrentETagReturnsNotModifiedWithoutLoading() {
+        // Given: un premier appel fournit l'ETag
+        Long sessionId = 1L;
+        java.time.LocalDateTime updatedAt = java.time.LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123456000);
+        Mockito.when(mockedSessionService.getById(sessionId))
+                .thenReturn(Session.builder().id(sessionId).updatedAt(updatedAt).build());
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        sessionController.findById(sessionId.toString(), true, new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), first));
+        String etag = first.getHeader("ETag");
+
+        Mockito.clearInvocations(mockedSessionService, mockedSessionMapper);
+        Mockito.when(mockedSessionService.getUpdatedAt(sessionId)).thenReturn(updatedAt);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session/1");
+        request.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        ResponseEntity<?> result = sessionController.findById(sessionId.toString(), true, new ServletWebRequest(request, response));
+
+        // Then: 304 sans charger ni mapper la session
+        assertEquals("\"1-" + (updatedAt.atZone(java.time.ZoneId.systemDefault()).toEpochSecond() * 1_000_000 + 123456) + "\"", etag);
+        assertNull(result);
+        assertEquals(304, response.getStatus());
+        Mockito.verify(mockedSessionService, Mockito.never()).getById(Mockito.anyLong());
+        Mockito.verifyNoInteractions(mockedSessionMapper);
+    }
+
     @Test
     public void testFindByIdNotFound() {
         // Given
@@ -42,7 +101,7 @@ public class SessionControllerTest {
         Mockito.when(mockedSessionService.getById(sessionId)).thenReturn(null);
 
         // When
-        ResponseEntity<?> response = sessionController.findById(sessionId.toString());
+        ResponseEntity<?> response = sessionController.findById(sessionId.toString(), true, webRequest());
 
         // Then
         Mockito.verify(mockedSessionService).getById(sessionId);
@@ -55,21 +114,184 @@ public class SessionControllerTest {
         String invalidSessionId = "invalid";
 
         // When
-        ResponseEntity<?> response = sessionController.findById(invalidSessionId);
+        ResponseEntity<?> response = sessionController.findById(invalidSessionId, true, webRequest());
 
         // Then
         assertEquals(400, response.getStatusCode().value());
     }
 
+    @Test
+    public void testFindByIdWithoutUsersSkipsParticipants() {
+        // Given
+        Long sessionId = 1L;
+        Session session = Session.builder().id(sessionId).build();
+        Mockito.when(mockedSessionService.getById(sessionId)).thenReturn(session);
+
+        // When
+        ResponseEntity<?> response = sessionController.findById(sessionId.toString(), false, webRequest());
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        Mockito.verify(mockedSessionMapper).toSummaryDto(session);
+        Mockito.verify(mockedSessionService, Mockito.never()).getParticipantIds(Mockito.any());
+    }
+
+    @Test
+    public void testFindParticipantsReturnsPageAndNextCursor() {
+        // Given
+        ParticipantCursor cursor = new ParticipantCursor(10L);
+        Mockito.when(mockedSessionService.findParticipantPage(1L, cursor, 1000))
+                .thenReturn(new ParticipantPage(List.of(11L, 12L), new ParticipantCursor(12L)));
+
+        // When: la taille demandée est ramenée au maximum
+        ResponseEntity<?> response = sessionController.findParticipants("1", cursor.encode(), 50000);
+
+        // Then
+        assertEquals(List.of(11L, 12L), response.getBody());
+        assertEquals(new ParticipantCursor(12L).encode(),
+                response.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testFindParticipantsDefaultPageSizeAndInvalidId() {
+        // Given
+        Mockito.when(mockedSessionService.findParticipantPage(1L, null, 200))
+                .thenReturn(new ParticipantPage(List.of(), null));
+
+        // When / Then
+        assertNull(sessionController.findParticipants("1", null, null).getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        assertEquals(400, sessionController.findParticipants("abc", null, null).getStatusCode().value());
+    }
+
     @Test
     public void testFindAll() {
         // Given
+        Mockito.when(mockedSessionService.findPage(null, 20))
+                .thenReturn(new SessionPage(Collections.emptyList(), null));
+
+        // When
+        ResponseEntity<?> response = sessionController.findAll(null, null, true, webRequest());
+
+        // Then: première page à la taille par défaut, sans curseur suivant
+        Mockito.verify(mockedSessionService).findPage(null, 20);
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testFindAllMarksSessionsJoinedByCaller() {
+        // Given: un appelant authentifié inscrit à la session 1 seulement
+        List<Session> sessions = List.of(Session.builder().id(1L).build(), Session.builder().id(2L).build());
+        SessionDto first = new SessionDto();
+        first.setId(1L);
+        SessionDto second = new SessionDto();
+        second.setId(2L);
+        Mockito.when(mockedSessionService.findPage(null, 20)).thenReturn(new SessionPage(sessions, null));
+        Mockito.when(mockedSessionMapper.toSummaryDto(sessions)).thenReturn(List.of(first, second));
+        Mockito.when(mockedSessionService.getJoinedSessionIds(7L, List.of(1L, 2L))).thenReturn(java.util.Set.of(1L));
+        UserDetailsImpl caller = UserDetailsImpl.builder().id(7L).username("caller@example.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(caller, null, caller.getAuthorities()));
+
+        try {
+            // When
+            sessionController.findAll(null, null, false, webRequest());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // Then
+        assertEquals(true, first.getJoined());
+        assertEquals(false, second.getJoined());
+    }
+
+    @Test
+    public void testFindAllWithUsersDerivesJoinedFromParticipantIds() {
+        // Given
+        List<Session> sessions = List.of(Session.builder().id(1L).build());
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setId(1L);
+        sessionDto.setUsers(List.of(3L, 7L));
+        Mockito.when(mockedSessionService.findPage(null, 20)).thenReturn(new SessionPage(sessions, null));
+        Mockito.when(mockedSessionMapper.toDto(Mockito.eq(sessions), Mockito.any())).thenReturn(List.of(sessionDto));
+        UserDetailsImpl caller = UserDetailsImpl.builder().id(7L).username("caller@example.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(caller, null, caller.getAuthorities()));
+
+        try {
+            // When
+            sessionController.findAll(null, null, true, webRequest());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // Then: pas de requête supplémentaire, les participants suffisent
+        assertEquals(true, sessionDto.getJoined());
+        Mockito.verify(mockedSessionService, Mockito.never()).getJoinedSessionIds(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testFindAllWithoutUsersSkipsParticipants() {
+        // Given
+        List<Session> sessions = List.of(Session.builder().id(1L).participantCount(12).build());
+        Mockito.when(mockedSessionService.findPage(null, 20)).thenReturn(new SessionPage(sessions, null));
+
+        // When
+        sessionController.findAll(null, null, false, webRequest());
+
+        // Then: l'occupation vient de participantCount, la table de jointure n'est pas lue
+        Mockito.verify(mockedSessionMapper).toSummaryDto(sessions);
+        Mockito.verify(mockedSessionService, Mockito.never()).getParticipantIds(Mockito.any());
+    }
+
+    @Test
+    public void testFindAllWithCursorReturnsNextCursorHeader() {
+        // Given
+        SessionCursor cursor = new SessionCursor(new Date(1000L), 5L);
+        SessionCursor next = new SessionCursor(new Date(2000L), 9L);
+        Mockito.when(mockedSessionService.findPage(cursor, 10))
+                .thenReturn(new SessionPage(Collections.emptyList(), next));
+
+        // When
+        ResponseEntity<?> response = sessionController.findAll(cursor.encode(), 10, true, webRequest());
+
+        // Then
+        Mockito.verify(mockedSessionService).findPage(cursor, 10);
+        assertEquals(next.encode(), response.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testFindAllCapsPageSize() {
+        // Given
+        Mockito.when(mockedSessionService.findPage(null, 100))
+                .thenReturn(new SessionPage(Collections.emptyList(), null));
+
+        // When
+        sessionController.findAll(null, 100000, true, webRequest());
+
+        // Then
+        Mockito.verify(mockedSessionService).findPage(null, 100);
+    }
+
+    @Test
+    public void testFindAllInvalidCursor() {
+        // When / Then
+        assertThrows(BadRequestException.class, () -> sessionController.findAll("not a cursor", null, true, webRequest()));
+    }
+
+    @Test
+    public void testFindAllUnpagedOptIn() {
+        // Given: le mode non paginé est activé pour une petite installation
+        SessionController unpagedController = new SessionController(mockedSessionService, mockedSessionMapper,
+                mockedSessionBulkImporter, mockedSessionExporter, mockedSessionChangeFeed,
+                mockedSessionEventBroadcaster, 20, 100, true, 200, 1000);
 
         // When
-        ResponseEntity<?> response = sessionController.findAll();
+        ResponseEntity<?> response = unpagedController.findAll(null, null, true, webRequest());
 
         // Then
         Mockito.verify(mockedSessionService).findAll();
+        Mockito.verify(mockedSessionService, Mockito.never()).findPage(Mockito.any(), Mockito.anyInt());
         assertEquals(200, response.getStatusCode().value());
     }
 
@@ -78,30 +300,64 @@ public class SessionControllerTest {
         // Given
         Session session = Session.builder().id(1L).build();
         SessionDto sessionDto = mockedSessionMapper.toDto(session);
+        Mockito.when(mockedSessionService.create(Mockito.any())).thenReturn(session);
 
         // When
-        ResponseEntity<?> response = sessionController.create(sessionDto);
+        ResponseEntity<?> response = sessionController.create(sessionDto, true);
 
         // Then
         Mockito.verify(mockedSessionService).create(mockedSessionMapper.toEntity(sessionDto));
+        Mockito.verify(mockedSessionMapper, Mockito.times(2)).toDto(session);
         assertEquals(200, response.getStatusCode().value());
     }
 
+    @Test
+    public void testCreateWithoutUsersReturnsSummary() {
+        // Given
+        Session session = Session.builder().id(1L).build();
+        Mockito.when(mockedSessionService.create(Mockito.any())).thenReturn(session);
+
+        // When
+        sessionController.create(new SessionDto(), false);
+
+        // Then: la réponse laisse les participants de côté
+        Mockito.verify(mockedSessionMapper).toSummaryDto(session);
+        Mockito.verify(mockedSessionMapper, Mockito.never()).toDto(session);
+    }
+
     @Test
     public void testUpdate() {
         // Given
         Long sessionId = 1L;
         Session session = Session.builder().id(sessionId).build();
         SessionDto sessionDto = mockedSessionMapper.toDto(session);
+        Mockito.when(mockedSessionService.update(Mockito.eq(sessionId), Mockito.any())).thenReturn(session);
 
         // When
-        ResponseEntity<?> response = sessionController.update(sessionId.toString(), sessionDto);
+        ResponseEntity<?> response = sessionController.update(sessionId.toString(), sessionDto, true);
 
-        // Then
-        Mockito.verify(mockedSessionService).update(sessionId, mockedSessionMapper.toEntity(sessionDto));
+        // Then: les participants sont lus par une requête sur la table de jointure
+        Mockito.verify(mockedSessionMapper).toEntityWithoutUsers(sessionDto);
+        Mockito.verify(mockedSessionService).update(sessionId, mockedSessionMapper.toEntityWithoutUsers(sessionDto));
+        Mockito.verify(mockedSessionService).getParticipantIds(java.util.List.of(sessionId));
         assertEquals(200, response.getStatusCode().value());
     }
 
+    @Test
+    public void testUpdateWithoutUsersReturnsSummary() {
+        // Given
+        Long sessionId = 1L;
+        Session session = Session.builder().id(sessionId).build();
+        Mockito.when(mockedSessionService.update(Mockito.eq(sessionId), Mockito.any())).thenReturn(session);
+
+        // When
+        sessionController.update(sessionId.toString(), new SessionDto(), false);
+
+        // Then
+        Mockito.verify(mockedSessionMapper).toSummaryDto(session);
+        Mockito.verify(mockedSessionService, Mockito.never()).getParticipantIds(Mockito.any());
+    }
+
     @Test
     public void testUpdateInvalidId() {
         // Given
@@ -109,7 +365,7 @@ public class SessionControllerTest {
         SessionDto sessionDto = new SessionDto();
 
         // When
-        ResponseEntity<?> response = sessionController.update(invalidSessionId, sessionDto);
+        ResponseEntity<?> response = sessionController.update(invalidSessionId, sessionDto, true);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -165,6 +421,7 @@ public class SessionControllerTest {
         // Given
         Long sessionId = 1L;
         Long userId = 2L;
+        Mockito.when(mockedSessionService.participate(sessionId, userId)).thenReturn(true);
 
         // When
         ResponseEntity<?> response = sessionController.participate(sessionId.toString(), userId.toString());
@@ -174,6 +431,18 @@ public class SessionControllerTest {
         assertEquals(200, response.getStatusCode().value());
     }
 
+    @Test
+    public void testParticipateWaitlistedWhenFull() {
+        // Given: la session est complète
+        Mockito.when(mockedSessionService.participate(1L, 2L)).thenReturn(false);
+
+        // When
+        ResponseEntity<?> response = sessionController.participate("1", "2");
+
+        // Then
+        assertEquals(202, response.getStatusCode().value());
+    }
+
     @Test
     public void testParticipateInvalidIds() {
         // Given
@@ -213,4 +482,115 @@ public class SessionControllerTest {
         // Then
         assertEquals(400, response.getStatusCode().value());
     }
+
+    @Test
+    public void testBulkReturnsImporterResults() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent("[]".getBytes());
+        java.util.List<SessionBulkResult> results = java.util.List.of(
+                new SessionBulkResult(0, 7L, SessionBulkResult.Status.CREATED, Collections.emptyList()));
+        Mockito.when(mockedSessionBulkImporter.importSessions(Mockito.any())).thenReturn(results);
+
+        // When
+        ResponseEntity<?> response = sessionController.bulk(request);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    public void testExportWritesJsonToResponse() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        sessionController.export(true, response);
+
+        // Then
+        assertEquals("application/json", response.getContentType());
+        Mockito.verify(mockedSessionExporter).export(response.getOutputStream(), true);
+    }
+
+    @Test
+    public void testChangesReturnsSessionsTombstonesAndWatermark() {
+        // Given
+        SessionChangeToken since = new SessionChangeToken(java.time.LocalDateTime.of(2024, 1, 1, 0, 0), 5L,
+                java.time.LocalDateTime.of(2024, 1, 1, 0, 0), 7L);
+        SessionChangeToken next = new SessionChangeToken(java.time.LocalDateTime.of(2024, 1, 2, 0, 0), 9L,
+                java.time.LocalDateTime.of(2024, 1, 2, 0, 0), 8L);
+        Session session = Session.builder().id(9L).build();
+        Mockito.when(mockedSessionChangeFeed.findChanges(since))
+                .thenReturn(new SessionChanges(java.util.List.of(session), java.util.List.of(8L), next, false));
+        Mockito.when(mockedSessionMapper.toDto(Mockito.eq(java.util.List.of(session)), Mockito.any()))
+                .thenReturn(java.util.List.of(new SessionDto()));
+
+        // When
+        ResponseEntity<?> response = sessionController.changes(since.encode(), true);
+
+        // Then
+        SessionChangesDto body = (SessionChangesDto) response.getBody();
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, body.getSessions().size());
+        assertEquals(java.util.List.of(8L), body.getDeleted());
+        assertEquals(next.encode(), body.getWatermark());
+    }
+
+    @Test
+    public void testChangesWithoutUsersSkipsParticipants() {
+        // Given
+        SessionChangeToken next = new SessionChangeToken(java.time.LocalDateTime.of(2024, 1, 2, 0, 0), 9L,
+                java.time.LocalDateTime.of(2024, 1, 2, 0, 0), 8L);
+        Session session = Session.builder().id(9L).build();
+        Mockito.when(mockedSessionChangeFeed.findChanges(null))
+                .thenReturn(new SessionChanges(java.util.List.of(session), java.util.List.of(), next, false));
+
+        // When
+        sessionController.changes(null, false);
+
+        // Then
+        Mockito.verify(mockedSessionMapper).toSummaryDto(java.util.List.of(session));
+        Mockito.verify(mockedSessionService, Mockito.never()).getParticipantIds(Mockito.any());
+    }
+
+    @Test
+    public void testEventsSubscribesToBroadcaster() {
+        // Given
+        org.springframework.web.servlet.mvc.method.annotation.SseEmitter emitter =
+                new org.springframework.web.servlet.mvc.method.annotation.SseEmitter();
+        Mockito.when(mockedSessionEventBroadcaster.subscribe()).thenReturn(emitter);
+
+        // When / Then
+        assertEquals(emitter, sessionController.events());
+    }
+
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), new MockHttpServletResponse());
+    }
+
+    @Test
+    public void testFindAllWithCurrentETagReturnsNotModified() {
+        // Given
+        com.openclassrooms.starterjwt.repository.CollectionVersion version = Mockito.mock(
+                com.openclassrooms.starterjwt.repository.CollectionVersion.class);
+        Mockito.when(version.getTotal()).thenReturn(3L);
+        Mockito.when(version.getLastUpdated()).thenReturn(java.time.LocalDateTime.of(2024, 1, 1, 10, 0));
+        Mockito.when(mockedSessionService.getCollectionVersion()).thenReturn(version);
+        Mockito.when(mockedSessionService.findPage(null, 20)).thenReturn(new SessionPage(Collections.emptyList(), null));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        sessionController.findAll(null, null, true, new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), first));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+        request.addHeader("If-None-Match", first.getHeader("ETag"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        ResponseEntity<?> result = sessionController.findAll(null, null, true, new ServletWebRequest(request, response));
+
+        // Then
+        assertNull(result);
+        assertEquals(304, response.getStatus());
+        Mockito.verify(mockedSessionService, Mockito.times(1)).findPage(null, 20);
+    }
 }
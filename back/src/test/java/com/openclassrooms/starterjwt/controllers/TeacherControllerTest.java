@@ -5,6 +5,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
@@ -27,7 +30,7 @@ public class TeacherControllerTest {
         Mockito.when(mockedTeacherService.findById(teacherId)).thenReturn(mockTeacher);
 
         // When
-        ResponseEntity<?> response = classUnderTest.findById(teacherId.toString());
+        ResponseEntity<?> response = classUnderTest.findById(teacherId.toString(), webRequest());
 
         // Then
         Mockito.verify(mockedTeacherService, Mockito.times(1)).findById(teacherId);
@@ -42,7 +45,7 @@ public class TeacherControllerTest {
         Mockito.when(mockedTeacherService.findById(teacherId)).thenReturn(null);
 
         // When
-        ResponseEntity<?> response = classUnderTest.findById(teacherId.toString());
+        ResponseEntity<?> response = classUnderTest.findById(teacherId.toString(), webRequest());
 
         // Then
         Mockito.verify(mockedTeacherService, Mockito.times(1)).findById(teacherId);
@@ -55,7 +58,7 @@ public class TeacherControllerTest {
         String invalidId = "invalid";
 
         // When
-        ResponseEntity<?> response = classUnderTest.findById(invalidId);
+        ResponseEntity<?> response = classUnderTest.findById(invalidId, webRequest());
 
         // Then
         Mockito.verify(mockedTeacherService, Mockito.never()).findById(Mockito.anyLong());
@@ -65,10 +68,34 @@ public class TeacherControllerTest {
     @Test
     public void testFindAll() {
         // When
-        ResponseEntity<?> response = classUnderTest.findAll();
+        ResponseEntity<?> response = classUnderTest.findAll(webRequest());
 
         // Then
         Mockito.verify(mockedTeacherService, Mockito.times(1)).findAll();
         assertEquals(200, response.getStatusCode().value());
     }
+
+    @Test
+    public void testFindByIdWithRecentIfModifiedSinceReturnsNotModified() {
+        // Given
+        Long teacherId = 1L;
+        java.time.LocalDateTime updatedAt = java.time.LocalDateTime.of(2024, 1, 1, 10, 0);
+        Mockito.when(mockedTeacherService.getUpdatedAt(teacherId)).thenReturn(updatedAt);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teacher/1");
+        request.addHeader("If-Modified-Since",
+                updatedAt.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        ResponseEntity<?> result = classUnderTest.findById(teacherId.toString(), new ServletWebRequest(request, response));
+
+        // Then
+        assertEquals(null, result);
+        assertEquals(304, response.getStatus());
+        Mockito.verify(mockedTeacherService, Mockito.never()).findById(teacherId);
+    }
+
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), new MockHttpServletResponse());
+    }
 }
@@ -12,15 +12,21 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 
 public class UserControllerTest {
     UserService mockUserService = Mockito.mock(UserService.class);
     UserMapper mockUserMapper = Mockito.mock(UserMapper.class);
+    SessionService mockSessionService = Mockito.mock(SessionService.class);
+    SessionMapper mockSessionMapper = Mockito.mock(SessionMapper.class);
 
-    UserController classUnderTest = new UserController(mockUserService, mockUserMapper);
+    UserController classUnderTest = new UserController(mockUserService, mockUserMapper, mockSessionService,
+            mockSessionMapper);
 
     @Test
     public void testFindById() {
@@ -72,6 +78,33 @@ public class UserControllerTest {
         assertEquals(400, response.getStatusCode().value());
     }
 
+    @Test
+    public void testFindSessionsReturnsJoinedSessions() {
+        // Given
+        Long userId = 1L;
+        java.util.List<Session> sessions = java.util.List.of(Session.builder().id(4L).build());
+        Mockito.when(mockSessionService.findJoinedBy(userId)).thenReturn(sessions);
+
+        // When
+        ResponseEntity<?> response = classUnderTest.findSessions(userId.toString());
+
+        // Then: la liste suffit, l'utilisateur n'est pas relu
+        assertEquals(200, response.getStatusCode().value());
+        Mockito.verify(mockSessionMapper).toSummaryDto(sessions);
+        Mockito.verify(mockUserService, Mockito.never()).findById(userId);
+    }
+
+    @Test
+    public void testFindSessionsWhenUserNotFoundOrInvalidId() {
+        // Given
+        Mockito.when(mockSessionService.findJoinedBy(1L)).thenReturn(java.util.List.of());
+        Mockito.when(mockUserService.findById(1L)).thenReturn(null);
+
+        // When / Then
+        assertEquals(404, classUnderTest.findSessions("1").getStatusCode().value());
+        assertEquals(400, classUnderTest.findSessions("invalid").getStatusCode().value());
+    }
+
     // la fonction save() dans UserController est en fait pour supprimer un
     // utilisateur
     @Test
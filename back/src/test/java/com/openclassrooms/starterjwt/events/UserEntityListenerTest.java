@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.openclassrooms.starterjwt.models.User;
+
+/**
+ * Tests pour {@link UserEntityListener}
+ */
+class UserEntityListenerTest {
+
+    @Test
+    void onChangePublishesUserChangedEvent() {
+        // Given
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        UserEntityListener listener = new UserEntityListener(publisher);
+        User user = User.builder().id(5L).email("eve@example.com").firstName("Eve").lastName("E")
+                .password("p").admin(false).build();
+
+        // When: la ligne est modifiée ou supprimée
+        listener.onChange(user);
+
+        // Then: un évènement portant l'id et l'email est publié
+        ArgumentCaptor<UserChangedEvent> captor = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        assertEquals(5L, captor.getValue().getId());
+        assertEquals("eve@example.com", captor.getValue().getEmail());
+    }
+}
@@ -5,7 +5,6 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.never;
 import static org.mockito.ArgumentMatchers.any;
 
-import java.util.Optional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.models.User;
@@ -21,6 +20,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -30,6 +30,7 @@ import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
 
 @SpringBootTest
+@ActiveProfiles("h2")
 @AutoConfigureMockMvc
 public class AuthControllerSIT {
 
@@ -142,16 +143,6 @@ public class AuthControllerSIT {
                 when(authenticationManager.authenticate(org.mockito.ArgumentMatchers.any())).thenReturn(auth);
                 when(jwtUtils.generateJwtToken(org.mockito.ArgumentMatchers.eq(auth))).thenReturn("token-xyz");
 
-                // repository used to detect isAdmin in controller
-                when(userRepository.findByEmail(email)).thenReturn(Optional.of(User.builder()
-                                .id(5L)
-                                .email(email)
-                                .firstName("Auth")
-                                .lastName("User")
-                                .password("x")
-                                .admin(false)
-                                .build()));
-
                 String json = mapper.writeValueAsString(java.util.Map.of("email", email, "password", password));
 
                 // When
@@ -168,6 +159,8 @@ public class AuthControllerSIT {
 
                 verify(authenticationManager).authenticate(org.mockito.ArgumentMatchers.any());
                 verify(jwtUtils).generateJwtToken(org.mockito.ArgumentMatchers.eq(auth));
+                // isAdmin is read from the principal, not from a second lookup
+                verify(userRepository, never()).findByEmail(email);
         }
 
         @Test
@@ -194,4 +187,18 @@ public class AuthControllerSIT {
                 MockHttpServletResponse response = result.getResponse();
                 org.junit.jupiter.api.Assertions.assertEquals(401, response.getStatus());
         }
+
+        @Test
+        public void GivenAnonymousCaller_WhenGetJwks_ThenReturnsPublicKeySet() throws Exception {
+                // Given: un appelant non authentifié
+
+                // When
+                MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/auth/jwks")).andReturn();
+
+                // Then
+                MockHttpServletResponse response = result.getResponse();
+                org.junit.jupiter.api.Assertions.assertEquals(200, response.getStatus());
+                org.junit.jupiter.api.Assertions.assertEquals("{\"keys\":[]}", response.getContentAsString());
+                verify(jwtUtils).getPublicJwks();
+        }
 }
@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Budgets de requêtes SQL des endpoints d'authentification, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class AuthQueryBudgetSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        @BeforeEach
+        public void setup() {
+                userRepository.save(new User("admin@example.com", "Admin", "Yoga",
+                                passwordEncoder.encode("secret"), true));
+        }
+
+        @AfterEach
+        public void cleanup() {
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @QueryBudget(1)
+        public void GivenValidCredentials_WhenLogin_ThenSingleQuery() throws Exception {
+                // Given
+                String json = mapper.writeValueAsString(Map.of("email", "admin@example.com", "password", "secret"));
+
+                // When
+                MockHttpServletResponse response = mockMvc.perform(
+                                MockMvcRequestBuilders.post("/api/auth/login")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(json))
+                                .andReturn().getResponse();
+
+                // Then: le flag admin est renseigné sans seconde lecture de l'utilisateur
+                assertEquals(200, response.getStatus());
+                assertTrue(response.getContentAsString().contains("\"admin\":true"));
+        }
+
+        @Test
+        @QueryBudget(2)
+        public void GivenNewUser_WhenRegister_ThenExistenceCheckAndInsert() throws Exception {
+                // Given
+                String json = mapper.writeValueAsString(Map.of(
+                                "email", "new@example.com",
+                                "firstName", "Jane",
+                                "lastName", "Doe",
+                                "password", "secret"));
+
+                // When
+                MockHttpServletResponse response = mockMvc.perform(
+                                MockMvcRequestBuilders.post("/api/auth/register")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(json))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(200, response.getStatus());
+        }
+}
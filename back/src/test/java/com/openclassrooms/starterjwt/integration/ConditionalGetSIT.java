@@ -0,0 +1,147 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Requêtes conditionnelles (ETag / Last-Modified) sur les sessions et les professeurs,
+ * sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class ConditionalGetSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private TeacherRepository teacherRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private Long sessionId;
+
+        private Long userId;
+
+        private String sessionETag;
+
+        private String catalogETag;
+
+        @BeforeEach
+        public void setup() throws Exception {
+                userId = userRepository.save(new User("alice@etag.test", "Alice", "A", "pwd", false)).getId();
+                sessionId = sessionRepository.save(Session.builder()
+                                .name("Yoga")
+                                .date(new Date())
+                                .description("Description")
+                                .build()).getId();
+                sessionETag = get("/api/session/" + sessionId, null).getHeader(HttpHeaders.ETAG);
+                catalogETag = get("/api/session", null).getHeader(HttpHeaders.ETAG);
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteById(userId);
+        }
+
+        private MockHttpServletResponse get(String path, String ifNoneMatch) throws Exception {
+                MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(path).with(user("user"));
+                if (ifNoneMatch != null) {
+                        request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                }
+                return mockMvc.perform(request).andReturn().getResponse();
+        }
+
+        @Test
+        @QueryBudget(1)
+        public void GivenCurrentETag_WhenFindById_ThenNotModifiedFromTimestampOnly() throws Exception {
+                // When
+                MockHttpServletResponse response = get("/api/session/" + sessionId, sessionETag);
+
+                // Then: seule la date de mise à jour est lue, rien n'est sérialisé
+                assertNotNull(sessionETag);
+                assertEquals(304, response.getStatus());
+                assertEquals("", response.getContentAsString());
+                assertEquals(sessionETag, response.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenNewParticipant_WhenFindByIdWithOldETag_ThenFullBody() throws Exception {
+                // Given
+                mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + sessionId + "/participate/" + userId));
+
+                // When
+                MockHttpServletResponse response = get("/api/session/" + sessionId, sessionETag);
+
+                // Then
+                assertEquals(200, response.getStatus());
+                assertNotEquals(sessionETag, response.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @QueryBudget(1)
+        public void GivenCurrentCatalogETag_WhenFindAll_ThenNotModified() throws Exception {
+                // When
+                MockHttpServletResponse response = get("/api/session", catalogETag);
+
+                // Then
+                assertEquals(304, response.getStatus());
+        }
+
+        @Test
+        public void GivenDeletedSession_WhenFindAllWithOldETag_ThenFullBody() throws Exception {
+                // Given
+                sessionRepository.deleteById(sessionId);
+
+                // When
+                MockHttpServletResponse response = get("/api/session", catalogETag);
+
+                // Then
+                assertEquals(200, response.getStatus());
+                assertNotEquals(catalogETag, response.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        public void GivenTeacherETags_WhenFetchedAgain_ThenNotModified() throws Exception {
+                // Given
+                Long teacherId = teacherRepository.findAll().get(0).getId();
+                String teacherETag = get("/api/teacher/" + teacherId, null).getHeader(HttpHeaders.ETAG);
+                String teachersETag = get("/api/teacher", null).getHeader(HttpHeaders.ETAG);
+
+                // When / Then
+                assertEquals(304, get("/api/teacher/" + teacherId, teacherETag).getStatus());
+                assertEquals(304, get("/api/teacher", teachersETag).getStatus());
+        }
+}
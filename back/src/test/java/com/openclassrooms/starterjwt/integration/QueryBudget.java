@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.integration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Nombre maximal de requêtes SQL autorisées pendant l'exécution d'un test
+ * (méthodes @BeforeEach exclues), mesuré par les statistiques Hibernate.
+ * Le test échoue si l'endpoint appelé dépasse ce budget.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    /**
+     * Nombre maximal de requêtes préparées.
+     */
+    long value();
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Extension JUnit associée à {@link QueryBudget} : remet à zéro les statistiques
+ * Hibernate juste avant le test puis compare le nombre de requêtes préparées
+ * au budget déclaré.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        Statistics statistics = statistics(context);
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        long count = statistics(context).getPrepareStatementCount();
+        assertTrue(count <= budget.value(), context.getDisplayName() + " a exécuté " + count
+                + " requête(s) SQL pour un budget de " + budget.value());
+    }
+
+    private static Statistics statistics(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context)
+                .getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+}
@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Contraintes posées par les migrations Flyway, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class SchemaMigrationSIT {
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @AfterEach
+        public void cleanup() {
+                jdbcTemplate.update("DELETE FROM PARTICIPATE");
+                jdbcTemplate.update("DELETE FROM SESSIONS");
+                jdbcTemplate.update("DELETE FROM USERS WHERE email LIKE '%@migration.test'");
+        }
+
+        @Test
+        public void GivenMigratedSchema_WhenReadingHistory_ThenLatestVersionApplied() {
+                // When
+                String version = jdbcTemplate.queryForObject(
+                                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" = TRUE"
+                                                + " ORDER BY \"installed_rank\" DESC LIMIT 1",
+                                String.class);
+
+                // Then
+                assertEquals("8", version);
+        }
+
+        @Test
+        public void GivenParticipation_WhenInsertedTwice_ThenPrimaryKeyRejectsDuplicate() {
+                // Given
+                Long userId = insertUser("alice@migration.test");
+                jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date) VALUES ('Yoga', 'Description', NOW())");
+                Long sessionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM SESSIONS", Long.class);
+                jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", sessionId, userId);
+
+                // When / Then
+                assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                                "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", sessionId, userId));
+        }
+
+        @Test
+        public void GivenExistingEmail_WhenInsertingSameEmail_ThenUniqueIndexRejectsIt() {
+                // Given
+                insertUser("bob@migration.test");
+
+                // When / Then
+                assertThrows(DataIntegrityViolationException.class, () -> insertUser("bob@migration.test"));
+        }
+
+        private Long insertUser(String email) {
+                jdbcTemplate.update("INSERT INTO USERS (first_name, last_name, admin, email, password) VALUES ('F', 'L', FALSE, ?, 'pwd')",
+                                email);
+                return jdbcTemplate.queryForObject("SELECT id FROM USERS WHERE email = ?", Long.class, email);
+        }
+}
@@ -0,0 +1,234 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Import en masse des sessions via POST /api/session/bulk, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionBulkSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private TeacherRepository teacherRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private Long teacherId;
+
+        private List<Long> userIds;
+
+        @BeforeEach
+        public void setup() {
+                teacherId = teacherRepository.findAll().get(0).getId();
+                userIds = List.of(
+                                userRepository.save(new User("alice@bulk.test", "Alice", "A", "pwd", false)).getId(),
+                                userRepository.save(new User("bob@bulk.test", "Bob", "B", "pwd", false)).getId());
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll(userRepository.findAllById(userIds));
+        }
+
+        private String item(Long id, String name, Long teacher, List<Long> users) throws Exception {
+                return "{" + (id != null ? "\"id\":" + id + "," : "") + "\"name\":\"" + name
+                                + "\",\"date\":1700000000000,\"teacher_id\":" + teacher
+                                + ",\"description\":\"Description\",\"users\":" + mapper.writeValueAsString(users) + "}";
+        }
+
+        private MockHttpServletResponse bulk(String json) throws Exception {
+                return mockMvc.perform(MockMvcRequestBuilders.post("/api/session/bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json))
+                                .andReturn().getResponse();
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(17)
+        public void GivenTimetable_WhenBulkCreate_ThenEverySessionSavedInBatches() throws Exception {
+                // Given: 120 sessions de deux participants chacune
+                List<String> items = new ArrayList<>();
+                for (int i = 0; i < 120; i++) {
+                        items.add(item(null, "Session " + i, teacherId, userIds));
+                }
+
+                // When
+                MockHttpServletResponse response = bulk("[" + String.join(",", items) + "]");
+
+                // Then: professeurs et utilisateurs lus une fois, au plus six requêtes d'allocation
+                // d'ids, trois lots de sessions, cinq lots de participations et la remise à l'heure
+                // de updated_at avant le commit
+                assertEquals(200, response.getStatus());
+                JsonNode results = mapper.readTree(response.getContentAsString());
+                assertEquals(120, results.size());
+                results.forEach(result -> assertEquals("CREATED", result.get("status").asText()));
+                assertEquals(120, sessionRepository.count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenSeveralChunks_WhenBulkCreate_ThenEverySessionStampedAtCommit() throws Exception {
+                // Given: plus d'un lot de 500, chacun horodaté à son flush
+                List<String> items = new ArrayList<>();
+                for (int i = 0; i < 700; i++) {
+                        items.add(item(null, "Session " + i, teacherId, List.of()));
+                }
+
+                // When
+                bulk("[" + String.join(",", items) + "]");
+
+                // Then: la remise à l'heure finale donne à toutes la même date de modification
+                assertEquals(1, sessionRepository.findAll().stream().map(Session::getUpdatedAt).distinct().count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenMixedItems_WhenBulk_ThenResultPerItemInInputOrder() throws Exception {
+                // Given
+                Long existingId = sessionRepository.save(Session.builder()
+                                .name("Old name")
+                                .date(new java.util.Date())
+                                .description("Description")
+                                .teacher(teacherRepository.findById(teacherId).get())
+                                .build()).getId();
+                String json = "[" + String.join(",",
+                                item(null, "New", teacherId, userIds),
+                                item(null, "", teacherId, userIds),
+                                item(existingId, "Renamed", teacherId, List.of()),
+                                item(existingId + 1000, "Missing", teacherId, List.of()),
+                                item(null, "Unknown teacher", teacherId + 1000, List.of()),
+                                item(null, "Unknown user", teacherId, List.of(userIds.get(0) + 1000))) + "]";
+
+                // When
+                MockHttpServletResponse response = bulk(json);
+
+                // Then
+                assertEquals(200, response.getStatus());
+                JsonNode results = mapper.readTree(response.getContentAsString());
+                List<String> statuses = new ArrayList<>();
+                results.forEach(result -> statuses.add(result.get("status").asText()));
+                assertEquals(List.of("CREATED", "INVALID", "UPDATED", "NOT_FOUND", "INVALID", "INVALID"), statuses);
+                assertEquals(existingId, results.get(2).get("id").asLong());
+                assertEquals("Renamed", sessionRepository.findById(existingId).get().getName());
+                assertEquals(2, sessionRepository.count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenEnrollmentAfterExport_WhenBulkUpdate_ThenParticipantKept() throws Exception {
+                // Given: Alice s'est inscrite après l'export utilisé pour l'import
+                Long existingId = sessionRepository.save(Session.builder()
+                                .name("Old name")
+                                .date(new java.util.Date())
+                                .description("Description")
+                                .teacher(teacherRepository.findById(teacherId).get())
+                                .users(new ArrayList<>(userRepository.findAllById(List.of(userIds.get(0)))))
+                                .build()).getId();
+
+                // When: l'élément importé porte la liste de participants de l'export, vide
+                MockHttpServletResponse response = bulk("[" + item(existingId, "Renamed", teacherId, List.of()) + "]");
+
+                // Then
+                assertEquals("UPDATED", mapper.readTree(response.getContentAsString()).get(0).get("status").asText());
+                assertEquals(1, sessionRepository.countParticipation(existingId, userIds.get(0)));
+                assertEquals(1, sessionRepository.findById(existingId).get().getParticipantCount());
+                assertEquals("Renamed", sessionRepository.findById(existingId).get().getName());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenMoreUsersThanCapacity_WhenBulkCreate_ThenItemInvalid() throws Exception {
+                // Given: deux participants pour une place
+                String overbooked = item(null, "Overbooked", teacherId, userIds).replace("{", "{\"capacity\":1,");
+
+                // When
+                MockHttpServletResponse response = bulk("[" + overbooked + "]");
+
+                // Then: même refus que POST /api/session
+                JsonNode result = mapper.readTree(response.getContentAsString()).get(0);
+                assertEquals("INVALID", result.get("status").asText());
+                assertEquals("More participants than capacity: 1", result.get("errors").get(0).asText());
+                assertEquals(0, sessionRepository.count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenWaitlistedUser_WhenBulkRaisesCapacity_ThenUserSeated() throws Exception {
+                // Given: Alice occupe la seule place, Bob attend
+                Long existingId = sessionRepository.save(Session.builder()
+                                .name("Full")
+                                .date(new java.util.Date())
+                                .description("Description")
+                                .teacher(teacherRepository.findById(teacherId).get())
+                                .capacity(1)
+                                .users(new ArrayList<>(userRepository.findAllById(List.of(userIds.get(0)))))
+                                .build()).getId();
+                assertEquals(202, mockMvc.perform(MockMvcRequestBuilders.post(
+                                "/api/session/" + existingId + "/participate/" + userIds.get(1)))
+                                .andReturn().getResponse().getStatus());
+
+                // When: l'import passe la capacité à deux
+                bulk("[" + item(existingId, "Full", teacherId, List.of()).replace("{", "{\"capacity\":2,") + "]");
+
+                // Then: Bob est promu, comme avec PUT
+                assertEquals(1, sessionRepository.countParticipation(existingId, userIds.get(1)));
+                assertEquals(2, sessionRepository.findById(existingId).get().getParticipantCount());
+                assertEquals(java.util.Optional.empty(), sessionRepository.findWaitlistHead(existingId));
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenMalformedArray_WhenBulk_ThenBadRequestAndNothingSaved() throws Exception {
+                // When: le premier élément est valide mais le tableau n'est jamais fermé
+                MockHttpServletResponse response = bulk("[" + item(null, "New", teacherId, userIds) + ",{\"name\":");
+
+                // Then
+                assertEquals(400, response.getStatus());
+                assertEquals(0, sessionRepository.count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenObjectInsteadOfArray_WhenBulk_ThenBadRequest() throws Exception {
+                // When / Then
+                assertEquals(400, bulk(item(null, "New", teacherId, userIds)).getStatus());
+        }
+}
@@ -0,0 +1,186 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.controllers.SessionController;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Pagination par curseur du catalogue des sessions, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionCatalogSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private List<User> users;
+
+        private Long firstSessionId;
+
+        @BeforeEach
+        public void setup() {
+                users = List.of(
+                                userRepository.save(new User("alice@example.com", "Alice", "A", "pwd", false)),
+                                userRepository.save(new User("bob@example.com", "Bob", "B", "pwd", false)));
+
+                // Deux sessions par date pour vérifier le départage par id, toutes avec deux participants
+                for (int i = 0; i < 5; i++) {
+                        Date date = new Date(1700000000000L + (i / 2) * 86400000L);
+                        Session session = sessionRepository.save(Session.builder()
+                                        .name("Session " + i)
+                                        .date(date)
+                                        .description("Description " + i)
+                                        .users(new ArrayList<>(users))
+                                        .build());
+                        if (firstSessionId == null) {
+                                firstSessionId = session.getId();
+                        }
+                }
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenFiveSessions_WhenWalkingPagesOfTwo_ThenEverySessionOnceInOrder() throws Exception {
+                // Given
+                List<String> names = new ArrayList<>();
+                String cursor = null;
+                int pages = 0;
+
+                // When: on suit les curseurs jusqu'à la dernière page
+                do {
+                        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/session")
+                                        .param("limit", "2");
+                        if (cursor != null) {
+                                request.param("cursor", cursor);
+                        }
+                        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+                        assertEquals(200, response.getStatus());
+
+                        JsonNode body = mapper.readTree(response.getContentAsString());
+                        body.forEach(session -> names.add(session.get("name").asText()));
+                        cursor = response.getHeader(SessionController.NEXT_CURSOR_HEADER);
+                        pages++;
+                } while (cursor != null);
+
+                // Then
+                assertEquals(3, pages);
+                assertEquals(List.of("Session 0", "Session 1", "Session 2", "Session 3", "Session 4"), names);
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenDefaultPageSize_WhenFindAll_ThenSinglePageWithoutCursor() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session"))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(200, response.getStatus());
+                assertEquals(5, mapper.readTree(response.getContentAsString()).size());
+                assertNull(response.getHeader(SessionController.NEXT_CURSOR_HEADER));
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(3)
+        public void GivenParticipants_WhenFindPage_ThenIdsReadFromJoinTableOnly() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session"))
+                                .andReturn().getResponse();
+
+                // Then: une requête pour l'ETag du catalogue, une pour la page, une pour les
+                // participants, aucun utilisateur chargé
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(5, body.size());
+                body.forEach(session -> assertEquals(
+                                "[" + users.get(0).getId() + "," + users.get(1).getId() + "]",
+                                session.get("users").toString()));
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(2)
+        public void GivenParticipants_WhenFindPageWithoutUsers_ThenCountOnlyAndJoinTableSkipped() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                                .param("users", "false"))
+                                .andReturn().getResponse();
+
+                // Then: l'ETag du catalogue et la page, l'occupation vient de participantCount
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(5, body.size());
+                body.forEach(session -> {
+                        assertEquals(2, session.get("participantCount").asInt());
+                        assertNull(session.get("users"));
+                });
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(2)
+        public void GivenParticipants_WhenFindById_ThenSessionAndParticipantIdsOnly() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(
+                                MockMvcRequestBuilders.get("/api/session/" + firstSessionId))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(200, response.getStatus());
+                assertEquals(2, mapper.readTree(response.getContentAsString()).get("users").size());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenMalformedCursor_WhenFindAll_ThenBadRequest() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                                .param("cursor", "%%%"))
+                                .andReturn().getResponse();
+
+                // Then
+                assertNotNull(response);
+                assertEquals(400, response.getStatus());
+        }
+}
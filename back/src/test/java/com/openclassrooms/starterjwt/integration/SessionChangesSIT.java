@@ -0,0 +1,194 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.services.SessionChangeToken;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+/**
+ * Synchronisation différentielle des sessions (GET /api/session/changes) sur une base H2 en
+ * mémoire, sans délai de stabilisation et avec des pages de deux éléments.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest(properties = { "oc.app.sessionChangesSettleMs=0", "oc.app.sessionChangesPageSize=2" })
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionChangesSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private SessionDeletionRepository sessionDeletionRepository;
+
+        @Autowired
+        private SessionService sessionService;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private List<Long> sessionIds;
+
+        @BeforeEach
+        public void setup() {
+                sessionIds = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                        sessionIds.add(sessionRepository.save(Session.builder()
+                                        .name("Session " + i)
+                                        .date(new Date(1700000000000L))
+                                        .description("Description " + i)
+                                        .users(new ArrayList<>())
+                                        .build()).getId());
+                }
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                sessionDeletionRepository.deleteAll();
+        }
+
+        private JsonNode changes(String since) throws Exception {
+                MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/session/changes");
+                if (since != null) {
+                        request.param("since", since);
+                }
+                MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+                assertEquals(200, response.getStatus());
+                return mapper.readTree(response.getContentAsString());
+        }
+
+        // Suit les pages jusqu'à la fin, renvoie le dernier corps avec les ids cumulés
+        private String drain(String since, List<Long> changed, List<Long> deleted) throws Exception {
+                JsonNode body;
+                do {
+                        body = changes(since);
+                        body.get("sessions").forEach(session -> changed.add(session.get("id").asLong()));
+                        body.get("deleted").forEach(id -> deleted.add(id.asLong()));
+                        since = body.get("watermark").asText();
+                } while (body.get("more").asBoolean());
+                return since;
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenNoWatermark_WhenWalkingPages_ThenWholeCatalogOnce() throws Exception {
+                // When
+                List<Long> changed = new ArrayList<>();
+                List<Long> deleted = new ArrayList<>();
+                drain(null, changed, deleted);
+
+                // Then
+                assertEquals(sessionIds, changed);
+                assertTrue(deleted.isEmpty());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenWatermark_WhenUpdateAndDelete_ThenOnlyDeltaAndTombstone() throws Exception {
+                // Given: une synchronisation complète
+                String watermark = drain(null, new ArrayList<>(), new ArrayList<>());
+
+                // When
+                Session renamed = sessionRepository.findById(sessionIds.get(0)).get();
+                renamed.setName("Renamed");
+                sessionService.update(renamed.getId(), renamed);
+                sessionService.delete(sessionIds.get(1));
+                List<Long> changed = new ArrayList<>();
+                List<Long> deleted = new ArrayList<>();
+                String next = drain(watermark, changed, deleted);
+
+                // Then
+                assertEquals(List.of(sessionIds.get(0)), changed);
+                assertEquals(List.of(sessionIds.get(1)), deleted);
+
+                // Then: rien de neuf depuis le nouveau filigrane
+                JsonNode idle = changes(next);
+                assertEquals(0, idle.get("sessions").size());
+                assertEquals(0, idle.get("deleted").size());
+                assertFalse(idle.get("more").asBoolean());
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(3)
+        public void GivenChanges_WhenOnePage_ThenSessionsTombstonesAndParticipantsOnly() throws Exception {
+                // When
+                JsonNode body = changes(null);
+
+                // Then: une requête par flux et une pour les participants
+                assertEquals(2, body.get("sessions").size());
+                assertTrue(body.get("more").asBoolean());
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(2)
+        public void GivenChanges_WhenWithoutUsers_ThenNoParticipantQuery() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/changes")
+                                .param("users", "false"))
+                                .andReturn().getResponse();
+
+                // Then: une requête par flux seulement
+                assertEquals(200, response.getStatus());
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(2, body.get("sessions").size());
+                assertFalse(body.get("sessions").get(0).has("users"));
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenWatermarkPastRetention_WhenChanges_ThenGone() throws Exception {
+                // Given
+                LocalDateTime old = LocalDateTime.of(2000, 1, 1, 0, 0);
+                String since = new SessionChangeToken(old, 0L, old, 0L).encode();
+
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/changes")
+                                .param("since", since))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(410, response.getStatus());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenMalformedWatermark_WhenChanges_ThenBadRequest() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/changes")
+                                .param("since", "%%%"))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(400, response.getStatus());
+        }
+}
@@ -0,0 +1,257 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Inscriptions simultanées à une session très demandée, sur un serveur HTTP démarré sur un port
+ * aléatoire et une base H2 en mémoire. Toutes les requêtes sont envoyées en même temps, chacune
+ * depuis son propre thread virtuel, et traversent filtres, sécurité et contrôleur.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "server.tomcat.threads.max=" + SessionContentionSIT.PARTICIPANTS)
+@ActiveProfiles("h2")
+public class SessionContentionSIT {
+        static final int PARTICIPANTS = 500;
+
+        private static final int EDITS = 25;
+
+        private static final int CAPACITY = 100;
+
+        private static final int LEAVES = 50;
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private TeacherRepository teacherRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private final HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .build();
+
+        private Teacher teacher;
+
+        private Long sessionId;
+
+        private List<Long> userIds;
+
+        private Long adminId;
+
+        private String token;
+
+        @BeforeEach
+        public void setup() throws Exception {
+                List<User> users = new ArrayList<>();
+                for (int i = 0; i < PARTICIPANTS; i++) {
+                        users.add(new User("user" + i + "@contention.test", "User", "" + i, "pwd", false));
+                }
+                userIds = userRepository.saveAll(users).stream().map(User::getId).toList();
+                adminId = userRepository.save(new User("admin@contention.test", "Admin", "Admin",
+                                passwordEncoder.encode("secret"), true)).getId();
+                teacher = teacherRepository.findAll().get(0);
+                sessionId = sessionRepository.save(Session.builder()
+                                .name("Ouverture")
+                                .date(new Date(1700000000000L))
+                                .description("Cours très demandé")
+                                .teacher(teacher)
+                                .users(new ArrayList<>())
+                                .build()).getId();
+
+                HttpResponse<String> login = httpClient.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(
+                                                Map.of("email", "admin@contention.test", "password", "secret"))))
+                                .build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, login.statusCode(), login.body());
+                token = mapper.readTree(login.body()).get("token").asText();
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll(userRepository.findAllById(userIds));
+                userRepository.deleteById(adminId);
+        }
+
+        private URI uri(String path) {
+                return URI.create("http://localhost:" + port + path);
+        }
+
+        private HttpRequest.Builder request(String path) {
+                return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token);
+        }
+
+        private HttpRequest participate(Long id, Long userId) {
+                return request("/api/session/" + id + "/participate/" + userId)
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build();
+        }
+
+        private HttpRequest leave(Long id, Long userId) {
+                return request("/api/session/" + id + "/participate/" + userId).DELETE().build();
+        }
+
+        private HttpRequest edit(Long id, int edit) throws Exception {
+                String json = mapper.writeValueAsString(Map.of(
+                                "name", "Ouverture " + edit,
+                                "date", 1700000000000L,
+                                "teacher_id", teacher.getId(),
+                                "description", "Cours très demandé"));
+                return request("/api/session/" + id)
+                                .header("Content-Type", "application/json")
+                                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                                .build();
+        }
+
+        // Envoie toutes les requêtes en même temps, une par thread virtuel, et renvoie les statuts
+        // dans l'ordre des requêtes
+        private List<Integer> sendConcurrently(List<HttpRequest> requests) throws Exception {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> responses = new ArrayList<>();
+                try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                        for (HttpRequest request : requests) {
+                                responses.add(clients.submit(() -> {
+                                        start.await();
+                                        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                                }));
+                        }
+                        start.countDown();
+                        List<Integer> statuses = new ArrayList<>();
+                        for (Future<Integer> response : responses) {
+                                statuses.add(response.get(120, TimeUnit.SECONDS));
+                        }
+                        return statuses;
+                }
+        }
+
+        private List<Long> participants(Long id) {
+                return jdbcTemplate.queryForList(
+                                "SELECT user_id FROM PARTICIPATE WHERE session_id = ? ORDER BY user_id", Long.class, id);
+        }
+
+        private List<Long> waitlist(Long id) {
+                return jdbcTemplate.queryForList(
+                                "SELECT user_id FROM WAITLIST WHERE session_id = ? ORDER BY queued_at, user_id", Long.class, id);
+        }
+
+        private int participantCount(Long id) {
+                return jdbcTemplate.queryForObject("SELECT participant_count FROM SESSIONS WHERE id = ?", Integer.class, id);
+        }
+
+        @Test
+        public void GivenPopularSession_When500ConcurrentEnrollmentsAndEdits_ThenNoEnrollmentLost() throws Exception {
+                // Given: 500 inscriptions entrecoupées de modifications de la session qui ne portent
+                // aucun participant
+                List<HttpRequest> requests = new ArrayList<>();
+                for (int i = 0; i < PARTICIPANTS; i++) {
+                        requests.add(participate(sessionId, userIds.get(i)));
+                        if (i % (PARTICIPANTS / EDITS) == 0) {
+                                requests.add(edit(sessionId, i));
+                        }
+                }
+
+                // When: toutes les requêtes partent en même temps
+                List<Integer> statuses = sendConcurrently(requests);
+
+                // Then
+                statuses.forEach(status -> assertEquals(200, status));
+                List<Long> participants = participants(sessionId);
+                assertEquals(PARTICIPANTS, participants.size());
+                assertEquals(new HashSet<>(userIds), new HashSet<>(participants));
+                assertEquals(PARTICIPANTS, participantCount(sessionId));
+        }
+
+        @Test
+        public void GivenCapacity_WhenFlashOpeningAndConcurrentLeaves_ThenSeatsNeverOversoldAndQueueServedInOrder()
+                        throws Exception {
+                // Given
+                Long limitedId = sessionRepository.save(Session.builder()
+                                .name("Places limitées")
+                                .date(new Date(1700000000000L))
+                                .description("Cours très demandé")
+                                .teacher(teacher)
+                                .capacity(CAPACITY)
+                                .users(new ArrayList<>())
+                                .build()).getId();
+                List<HttpRequest> enrollments = new ArrayList<>();
+                for (Long userId : userIds) {
+                        enrollments.add(participate(limitedId, userId));
+                }
+
+                // When: 500 inscriptions simultanées pour 100 places
+                List<Integer> statuses = sendConcurrently(enrollments);
+
+                // Then: 200 pour une place, 202 pour la liste d'attente
+                List<Long> participants = participants(limitedId);
+                List<Long> queue = waitlist(limitedId);
+                assertEquals(CAPACITY, statuses.stream().filter(status -> status == 200).count());
+                assertEquals(PARTICIPANTS - CAPACITY, statuses.stream().filter(status -> status == 202).count());
+                assertEquals(CAPACITY, participants.size());
+                assertEquals(CAPACITY, participantCount(limitedId));
+                assertEquals(PARTICIPANTS - CAPACITY, queue.size());
+
+                // When: 50 participants se désistent en même temps
+                List<HttpRequest> leaves = new ArrayList<>();
+                for (Long userId : participants.subList(0, LEAVES)) {
+                        leaves.add(leave(limitedId, userId));
+                }
+                sendConcurrently(leaves).forEach(status -> assertEquals(200, status));
+
+                // Then: les 50 premiers de la file prennent les places, dans l'ordre
+                List<Long> after = participants(limitedId);
+                assertEquals(CAPACITY, after.size());
+                assertEquals(CAPACITY, participantCount(limitedId));
+                assertTrue(after.containsAll(queue.subList(0, LEAVES)));
+                assertEquals(queue.subList(LEAVES, queue.size()), waitlist(limitedId));
+        }
+}
@@ -19,6 +19,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -32,6 +33,7 @@ import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
 @SpringBootTest
+@ActiveProfiles("h2")
 @AutoConfigureMockMvc
 public class SessionControllerSIT {
 
@@ -139,7 +141,7 @@ public class SessionControllerSIT {
                 Session s1 = Session.builder().id(1L).name("Morning Yoga").date(date).description("A.m.").build();
                 Session s2 = Session.builder().id(2L).name("Evening Yoga").date(date).description("P.m.").build();
 
-                when(sessionRepository.findAll()).thenReturn(Arrays.asList(s1, s2));
+                when(sessionRepository.findAllByOrderByDateAscIdAsc(ArgumentMatchers.any())).thenReturn(Arrays.asList(s1, s2));
 
                 // When
                 MvcResult result = mockMvc.perform(
@@ -154,14 +156,14 @@ public class SessionControllerSIT {
                 assertTrue(response.getContentAsString().contains("Morning Yoga"));
                 assertTrue(response.getContentAsString().contains("Evening Yoga"));
 
-                verify(sessionRepository).findAll();
+                verify(sessionRepository).findAllByOrderByDateAscIdAsc(ArgumentMatchers.any());
         }
 
         @Test
         @WithMockUser
         public void givenSessionController_whenFindAll_withNoSessions_thenReturnsEmptyList() throws Exception {
                 // Given
-                when(sessionRepository.findAll()).thenReturn(Collections.emptyList());
+                when(sessionRepository.findAllByOrderByDateAscIdAsc(ArgumentMatchers.any())).thenReturn(Collections.emptyList());
 
                 // When
                 MvcResult result = mockMvc.perform(
@@ -175,7 +177,7 @@ public class SessionControllerSIT {
                 assertEquals(200, response.getStatus());
                 assertTrue(response.getContentAsString().contains("[]"));
 
-                verify(sessionRepository).findAll();
+                verify(sessionRepository).findAllByOrderByDateAscIdAsc(ArgumentMatchers.any());
         }
 
         @Test
@@ -185,8 +187,8 @@ public class SessionControllerSIT {
                 Date date = new Date();
                 Session saved = Session.builder().id(10L).name("New Session").date(date).description("Desc").build();
 
-                when(teacherRepository.findById(1L))
-                                .thenReturn(Optional.of(Teacher.builder().id(1L).firstName("T").lastName("L").build()));
+                when(teacherRepository.getReferenceById(1L))
+                                .thenReturn(Teacher.builder().id(1L).firstName("T").lastName("L").build());
                 when(sessionRepository.save(ArgumentMatchers.any(Session.class))).thenReturn(saved);
 
                 String json = "{\"name\":\"New Session\",\"date\":" + date.getTime()
@@ -217,8 +219,9 @@ public class SessionControllerSIT {
                 Session updated = Session.builder().id(id).name("Updated Session").date(date).description("Updated")
                                 .build();
 
-                when(teacherRepository.findById(1L))
-                                .thenReturn(Optional.of(Teacher.builder().id(1L).firstName("T").lastName("L").build()));
+                when(teacherRepository.getReferenceById(1L))
+                                .thenReturn(Teacher.builder().id(1L).firstName("T").lastName("L").build());
+                when(sessionRepository.findById(id)).thenReturn(Optional.of(updated));
                 when(sessionRepository.save(ArgumentMatchers.any(Session.class))).thenReturn(updated);
 
                 String json = "{\"name\":\"Updated Session\",\"date\":" + date.getTime()
@@ -289,15 +292,9 @@ public class SessionControllerSIT {
                 // Given
                 Long id = 7L;
                 Long userId = 2L;
-                Date date = new Date();
-                Session session = Session.builder().id(id).name("S").date(date).description("D")
-                                .users(new java.util.ArrayList<>()).build();
-                com.openclassrooms.starterjwt.models.User user = com.openclassrooms.starterjwt.models.User.builder()
-                                .id(userId)
-                                .email("u@x.com").firstName("F").lastName("L").password("p").admin(false).build();
 
-                when(sessionRepository.findById(id)).thenReturn(Optional.of(session));
-                when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+                when(sessionRepository.claimSeat(ArgumentMatchers.eq(id), ArgumentMatchers.any())).thenReturn(1);
+                when(sessionRepository.insertParticipant(id, userId)).thenReturn(1);
 
                 // When
                 MvcResult result = mockMvc.perform(
@@ -316,15 +313,9 @@ public class SessionControllerSIT {
                 // Given
                 Long id = 7L;
                 Long userId = 2L;
-                Date date = new Date();
-                com.openclassrooms.starterjwt.models.User user = com.openclassrooms.starterjwt.models.User.builder()
-                                .id(userId)
-                                .email("u@x.com").firstName("F").lastName("L").password("p").admin(false).build();
-                Session session = Session.builder().id(id).name("S").date(date).description("D")
-                                .users(new java.util.ArrayList<>(java.util.List.of(user))).build();
 
-                when(sessionRepository.findById(id)).thenReturn(Optional.of(session));
-                when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+                when(sessionRepository.lockById(id)).thenReturn(Optional.of(id));
+                when(sessionRepository.deleteParticipant(id, userId)).thenReturn(1);
 
                 // When
                 MvcResult result = mockMvc.perform(
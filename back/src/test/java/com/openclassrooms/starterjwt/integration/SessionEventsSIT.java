@@ -0,0 +1,106 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+/**
+ * Flux Server-Sent Events des changements de sessions, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionEventsSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionService sessionService;
+
+        @Autowired
+        private SessionEventBroadcaster sessionEventBroadcaster;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll(userRepository.findAll().stream()
+                                .filter(user -> user.getEmail().endsWith("@events.test")).toList());
+        }
+
+        // Les envois partent sur un thread virtuel : on attend qu'ils arrivent dans la réponse
+        private String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+                long deadline = System.currentTimeMillis() + 5000;
+                String content = response.getContentAsString();
+                while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(10);
+                        content = response.getContentAsString();
+                }
+                return content;
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenSubscriber_WhenSessionCreatedAndJoined_ThenEventsStreamedInOrder() throws Exception {
+                // Given
+                int before = sessionEventBroadcaster.subscriberCount();
+                MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/events")).andReturn();
+                assertTrue(result.getRequest().isAsyncStarted());
+                assertEquals(before + 1, sessionEventBroadcaster.subscriberCount());
+                User user = userRepository.save(new User("alice@events.test", "Alice", "A", "pwd", false));
+
+                // When
+                Session session = sessionService.create(Session.builder()
+                                .name("Yoga")
+                                .date(new Date(1700000000000L))
+                                .description("Description")
+                                .users(new ArrayList<>())
+                                .build());
+                sessionService.participate(session.getId(), user.getId());
+
+                // Then
+                String content = awaitContent(result.getResponse(), "event:PARTICIPATED");
+                assertTrue(content.contains("event:CREATED\ndata:{\"type\":\"CREATED\",\"sessionId\":" + session.getId()),
+                                content);
+                assertTrue(content.indexOf("event:CREATED") < content.indexOf("event:PARTICIPATED"), content);
+                assertTrue(content.contains("\"userId\":" + user.getId()), content);
+        }
+
+        @Test
+        public void GivenNoAuthentication_WhenSubscribe_ThenUnauthorized() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/events"))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(401, response.getStatus());
+        }
+}
@@ -0,0 +1,115 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.services.SessionExporter;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Export en flux du catalogue complet via GET /api/session/export, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionExportSIT {
+
+        // Plus de deux fenêtres de lecture, la dernière incomplète
+        private static final int SESSIONS = SessionExporter.WINDOW_SIZE * 2 + 7;
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private Long userId;
+
+        @BeforeEach
+        public void setup() {
+                User user = userRepository.save(new User("alice@export.test", "Alice", "A", "pwd", false));
+                userId = user.getId();
+
+                List<Session> sessions = new ArrayList<>();
+                for (int i = 0; i < SESSIONS; i++) {
+                        sessions.add(Session.builder()
+                                        .name("Session " + i)
+                                        .date(new Date(1700000000000L + i * 60000L))
+                                        .description("Description " + i)
+                                        .users(i % 2 == 0 ? new ArrayList<>(List.of(user)) : new ArrayList<>())
+                                        .build());
+                }
+                sessionRepository.saveAll(sessions);
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteById(userId);
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(6)
+        public void GivenLargeCatalog_WhenExport_ThenEverySessionInOrderWithParticipants() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/export"))
+                                .andReturn().getResponse();
+
+                // Then: pour chaque fenêtre, une requête pour les sessions et une pour les participants
+                assertEquals(200, response.getStatus());
+                assertEquals("application/json", response.getContentType());
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(SESSIONS, body.size());
+                for (int i = 0; i < SESSIONS; i++) {
+                        assertEquals("Session " + i, body.get(i).get("name").asText());
+                        assertEquals(i % 2 == 0 ? "[" + userId + "]" : "[]", body.get(i).get("users").toString());
+                }
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(3)
+        public void GivenLargeCatalog_WhenExportWithoutUsers_ThenOneQueryPerWindow() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/export")
+                                .param("users", "false"))
+                                .andReturn().getResponse();
+
+                // Then: les participants ne sont ni lus ni écrits, seule l'occupation reste
+                assertEquals(200, response.getStatus());
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(SESSIONS, body.size());
+                for (int i = 0; i < SESSIONS; i++) {
+                        assertFalse(body.get(i).has("users"));
+                        assertEquals(i % 2 == 0 ? 1 : 0, body.get(i).get("participantCount").asInt());
+                }
+        }
+}
@@ -0,0 +1,175 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+/**
+ * Sessions d'un utilisateur et indicateur joined du catalogue, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionJoinedSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private User alice;
+
+        private User bob;
+
+        private UserDetailsImpl aliceDetails;
+
+        @BeforeEach
+        public void setup() {
+                alice = userRepository.save(new User("alice@example.com", "Alice", "A", "pwd", false));
+                bob = userRepository.save(new User("bob@example.com", "Bob", "B", "pwd", false));
+                aliceDetails = UserDetailsImpl.builder().id(alice.getId()).username(alice.getEmail()).build();
+
+                // Alice participe aux sessions 0 et 2, Bob à la session 1 seulement
+                for (int i = 0; i < 3; i++) {
+                        sessionRepository.save(Session.builder()
+                                        .name("Session " + i)
+                                        .date(new Date(1700000000000L + i * 86400000L))
+                                        .description("Description " + i)
+                                        .users(new ArrayList<>(i == 1 ? List.of(bob) : List.of(alice)))
+                                        .build());
+                }
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll();
+        }
+
+        private List<String> names(JsonNode body) {
+                List<String> names = new ArrayList<>();
+                body.forEach(session -> names.add(session.get("name").asText()));
+                return names;
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(1)
+        public void GivenEnrollments_WhenUserSessions_ThenOwnSessionsInCatalogOrder() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(
+                                MockMvcRequestBuilders.get("/api/user/" + alice.getId() + "/sessions"))
+                                .andReturn().getResponse();
+
+                // Then: une seule lecture par l'index user_id, sans les participants
+                assertEquals(200, response.getStatus());
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(List.of("Session 0", "Session 2"), names(body));
+                body.forEach(session -> {
+                        assertEquals(1, session.get("participantCount").asInt());
+                        assertNull(session.get("users"));
+                });
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenUnknownUser_WhenUserSessions_ThenNotFound() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(
+                                MockMvcRequestBuilders.get("/api/user/" + (bob.getId() + 1000) + "/sessions"))
+                                .andReturn().getResponse();
+
+                // Then
+                assertEquals(404, response.getStatus());
+        }
+
+        @Test
+        public void GivenOtherCallersETag_WhenCatalog_ThenFullBodyWithOwnJoined() throws Exception {
+                // Given: le catalogue tel qu'Alice l'a reçu
+                MockHttpServletResponse aliceResponse = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                                .param("users", "false")
+                                .with(user(aliceDetails)))
+                                .andReturn().getResponse();
+                UserDetailsImpl bobDetails = UserDetailsImpl.builder().id(bob.getId()).username(bob.getEmail()).build();
+
+                // When: Bob revalide avec l'ETag d'Alice
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                                .param("users", "false")
+                                .header(HttpHeaders.IF_NONE_MATCH, aliceResponse.getHeader(HttpHeaders.ETAG))
+                                .with(user(bobDetails)))
+                                .andReturn().getResponse();
+
+                // Then: pas de 304, Bob reçoit ses propres indicateurs et la réponse varie selon l'appelant
+                assertEquals(200, response.getStatus());
+                assertNotEquals(aliceResponse.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.ETAG));
+                assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.AUTHORIZATION));
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(false, body.get(0).get("joined").asBoolean());
+                assertEquals(true, body.get(1).get("joined").asBoolean());
+        }
+
+        @Test
+        @QueryBudget(3)
+        public void GivenAuthenticatedCaller_WhenCatalogWithoutUsers_ThenJoinedFromCallerRows() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                                .param("users", "false")
+                                .with(user(aliceDetails)))
+                                .andReturn().getResponse();
+
+                // Then: l'ETag, la page et les inscriptions de l'appelant parmi la page
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(3, body.size());
+                assertEquals(true, body.get(0).get("joined").asBoolean());
+                assertEquals(false, body.get(1).get("joined").asBoolean());
+                assertEquals(true, body.get(2).get("joined").asBoolean());
+        }
+
+        @Test
+        @QueryBudget(3)
+        public void GivenAuthenticatedCaller_WhenCatalogWithUsers_ThenJoinedFromParticipantIds() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                                .with(user(aliceDetails)))
+                                .andReturn().getResponse();
+
+                // Then: les participants déjà lus suffisent, pas de requête de plus
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(false, body.get(1).get("joined").asBoolean());
+                assertEquals(true, body.get(2).get("joined").asBoolean());
+        }
+}
@@ -0,0 +1,128 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Création et mise à jour des sessions sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionMutationSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private TeacherRepository teacherRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private Long teacherId;
+
+        private List<Long> userIds;
+
+        @BeforeEach
+        public void setup() {
+                teacherId = teacherRepository.findAll().get(0).getId();
+                userIds = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                        userIds.add(userRepository.save(
+                                        new User("user" + i + "@mutation.test", "User", "" + i, "pwd", false)).getId());
+                }
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll(userRepository.findAllById(userIds));
+        }
+
+        private MockHttpServletResponse create(Long teacher, List<Long> users) throws Exception {
+                return create(teacher, users, "Description");
+        }
+
+        private MockHttpServletResponse create(Long teacher, List<Long> users, String description) throws Exception {
+                String json = "{\"name\":\"Yoga\",\"date\":1700000000000,\"teacher_id\":" + teacher
+                                + ",\"description\":\"" + description + "\",\"users\":" + mapper.writeValueAsString(users) + "}";
+                return mockMvc.perform(MockMvcRequestBuilders.post("/api/session")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json))
+                                .andReturn().getResponse();
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(5)
+        public void GivenParticipants_WhenCreate_ThenUsersInOneSelectAndNoTeacherSelect() throws Exception {
+                // When
+                MockHttpServletResponse response = create(teacherId, userIds);
+
+                // Then: un select des utilisateurs, au plus deux requêtes d'allocation d'ids,
+                // l'insert de la session et un seul lot pour les dix participations
+                assertEquals(200, response.getStatus());
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(userIds.size(), body.get("participantCount").asInt());
+                assertEquals(userIds.toString().replace(" ", ""), body.get("users").toString());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenUnknownUserId_WhenCreate_ThenBadRequestAndNothingSaved() throws Exception {
+                // Given
+                List<Long> users = List.of(userIds.get(0), userIds.get(2) + 1000);
+
+                // When / Then
+                assertEquals(400, create(teacherId, users).getStatus());
+                assertEquals(0, sessionRepository.count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenUnknownTeacherId_WhenCreate_ThenBadRequestAndNothingSaved() throws Exception {
+                // When / Then
+                assertEquals(400, create(teacherId + 1000, userIds).getStatus());
+                assertEquals(0, sessionRepository.count());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenLongestAllowedDescription_WhenCreate_ThenStored() throws Exception {
+                // Given: la longueur maximale acceptée par la validation
+                String description = "a".repeat(2500);
+
+                // When / Then
+                assertEquals(200, create(teacherId, userIds, description).getStatus());
+                assertEquals(description, sessionRepository.findAll().get(0).getDescription());
+        }
+}
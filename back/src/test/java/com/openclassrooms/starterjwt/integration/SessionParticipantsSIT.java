@@ -0,0 +1,142 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.controllers.SessionController;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Pagination des participants d'une session très suivie, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionParticipantsSIT {
+        private static final int ATTENDEES = 250;
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private List<Long> userIds;
+
+        private Long sessionId;
+
+        @BeforeEach
+        public void setup() {
+                List<User> users = new ArrayList<>();
+                for (int i = 0; i < ATTENDEES; i++) {
+                        users.add(new User("user" + i + "@live.test", "User", "" + i, "pwd", false));
+                }
+                users = userRepository.saveAll(users);
+                userIds = users.stream().map(User::getId).sorted().toList();
+                sessionId = sessionRepository.save(Session.builder()
+                                .name("Direct")
+                                .date(new Date(1700000000000L))
+                                .description("Session retransmise")
+                                .users(new ArrayList<>(users))
+                                .build()).getId();
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll(userRepository.findAllById(userIds));
+        }
+
+        private MockHttpServletResponse participants(Long id, String cursor) throws Exception {
+                MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/session/" + id + "/participants")
+                                .param("limit", "100");
+                if (cursor != null) {
+                        request.param("cursor", cursor);
+                }
+                return mockMvc.perform(request).andReturn().getResponse();
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenLargeSession_WhenWalkingParticipantPages_ThenEveryIdOnceInOrder() throws Exception {
+                // Given
+                List<Long> ids = new ArrayList<>();
+                String cursor = null;
+                int pages = 0;
+
+                // When
+                do {
+                        MockHttpServletResponse response = participants(sessionId, cursor);
+                        assertEquals(200, response.getStatus());
+                        mapper.readTree(response.getContentAsString()).forEach(id -> ids.add(id.asLong()));
+                        cursor = response.getHeader(SessionController.NEXT_CURSOR_HEADER);
+                        pages++;
+                } while (cursor != null);
+
+                // Then
+                assertEquals(3, pages);
+                assertEquals(userIds, ids);
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(1)
+        public void GivenLargeSession_WhenOneParticipantPage_ThenSingleKeysetRead() throws Exception {
+                // When
+                MockHttpServletResponse response = participants(sessionId, null);
+
+                // Then
+                assertEquals(100, mapper.readTree(response.getContentAsString()).size());
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(1)
+        public void GivenLargeSession_WhenFindByIdWithoutUsers_ThenBoundedBodyWithCount() throws Exception {
+                // When
+                MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + sessionId)
+                                .param("users", "false"))
+                                .andReturn().getResponse();
+
+                // Then: la session seule, sans lecture ni sérialisation des participants
+                JsonNode body = mapper.readTree(response.getContentAsString());
+                assertEquals(ATTENDEES, body.get("participantCount").asInt());
+                assertNull(body.get("users"));
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenUnknownSessionOrBadCursor_WhenParticipants_ThenNotFoundOrBadRequest() throws Exception {
+                // When / Then
+                assertEquals(404, participants(sessionId + 1000, null).getStatus());
+                assertEquals(400, participants(sessionId, "%%%").getStatus());
+        }
+}
@@ -0,0 +1,177 @@
+package com.openclassrooms.starterjwt.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.ParticipantCountRepair;
+
+/**
+ * Inscriptions aux sessions par INSERT / DELETE conditionnels, sur une base H2 en mémoire.
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en français.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class SessionParticipationSIT {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private SessionRepository sessionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private ParticipantCountRepair participantCountRepair;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private Long sessionId;
+
+        private Long userId;
+
+        @BeforeEach
+        public void setup() {
+                userId = userRepository.save(new User("alice@example.com", "Alice", "A", "pwd", false)).getId();
+                sessionId = sessionRepository.save(Session.builder()
+                                .name("Yoga")
+                                .date(new Date())
+                                .description("Description")
+                                .build()).getId();
+        }
+
+        @AfterEach
+        public void cleanup() {
+                sessionRepository.deleteAll();
+                userRepository.deleteAll();
+        }
+
+        private int participate(Long session, Long user) throws Exception {
+                return mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + session + "/participate/" + user))
+                                .andReturn().getResponse().getStatus();
+        }
+
+        private int leave(Long session, Long user) throws Exception {
+                return mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + session + "/participate/" + user))
+                                .andReturn().getResponse().getStatus();
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(3)
+        public void GivenNewParticipant_WhenParticipate_ThenSingleInsert() throws Exception {
+                // When / Then: la prise de place (qui avance aussi updated_at pour l'ETag), l'insert,
+                // puis la sortie d'une éventuelle liste d'attente
+                assertEquals(200, participate(sessionId, userId));
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenParticipant_WhenParticipateAgain_ThenBadRequestAndSingleRow() throws Exception {
+                // Given
+                participate(sessionId, userId);
+
+                // When / Then
+                assertEquals(400, participate(sessionId, userId));
+                assertEquals(1, sessionRepository.findParticipantIds(List.of(sessionId)).size());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenUnknownSessionOrUser_WhenParticipate_ThenNotFound() throws Exception {
+                // When / Then
+                assertEquals(404, participate(sessionId + 1000, userId));
+                assertEquals(404, participate(sessionId, userId + 1000));
+        }
+
+        @Test
+        @WithMockUser
+        @QueryBudget(8)
+        public void GivenParticipant_WhenLeave_ThenSingleDelete() throws Exception {
+                // Given
+                participate(sessionId, userId);
+
+                // When / Then: inscription (3), désinscription sous verrou de la session avec place
+                // rendue et lecture de la tête de liste d'attente (4), puis vérification
+                assertEquals(200, leave(sessionId, userId));
+                assertEquals(0, sessionRepository.findParticipantIds(List.of(sessionId)).size());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenNonParticipant_WhenLeave_ThenBadRequestOrNotFound() throws Exception {
+                // When / Then
+                assertEquals(400, leave(sessionId, userId));
+                assertEquals(404, leave(sessionId + 1000, userId));
+        }
+
+        private int participantCount() {
+                return sessionRepository.findById(sessionId).get().getParticipantCount();
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenParticipateAndLeave_WhenReadingSession_ThenCountFollows() throws Exception {
+                // When / Then
+                participate(sessionId, userId);
+                assertEquals(1, participantCount());
+                leave(sessionId, userId);
+                assertEquals(0, participantCount());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenDriftedCount_WhenRepair_ThenCountAndUpdatedAtFixed() throws Exception {
+                // Given: le compteur a divergé de PARTICIPATE, par exemple après une correction manuelle
+                participate(sessionId, userId);
+                jdbcTemplate.update("UPDATE SESSIONS SET participant_count = 7 WHERE id = ?", sessionId);
+                var before = sessionRepository.findUpdatedAtById(sessionId).get();
+
+                // When
+                int repaired = participantCountRepair.repair();
+
+                // Then: seule la session divergente est réécrite, et son ETag change
+                assertEquals(1, repaired);
+                assertEquals(1, participantCount());
+                assertTrue(sessionRepository.findUpdatedAtById(sessionId).get().isAfter(before));
+                assertEquals(0, participantCountRepair.repair());
+        }
+
+        @Test
+        @WithMockUser
+        public void GivenLaterStamp_WhenRepair_ThenUpdatedAtNotMovedBack() throws Exception {
+                // Given: un compteur divergent dont updated_at est en avance sur l'horloge de la réparation
+                java.time.LocalDateTime ahead = java.time.LocalDateTime.now().plusHours(1).truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
+                jdbcTemplate.update("UPDATE SESSIONS SET participant_count = 7, updated_at = ? WHERE id = ?", ahead, sessionId);
+
+                // When
+                int repaired = participantCountRepair.repair();
+
+                // Then: le compteur est corrigé sans que l'ETag revienne en arrière
+                assertEquals(1, repaired);
+                assertEquals(0, participantCount());
+                assertEquals(ahead, sessionRepository.findUpdatedAtById(sessionId).get());
+        }
+}
@@ -48,9 +48,8 @@ public class SessionMapperImplTest {
         User user11 = User.builder().id(11L).firstName("U").lastName("Two").email("user11@example.com").password("p11")
                 .build();
 
-        when(teacherService.findById(1L)).thenReturn(teacher);
-        when(userService.findById(10L)).thenReturn(user10);
-        when(userService.findById(11L)).thenReturn(user11);
+        when(teacherService.getReference(1L)).thenReturn(teacher);
+        when(userService.findAllById(Arrays.asList(10L, 11L))).thenReturn(new java.util.ArrayList<>(Arrays.asList(user10, user11)));
 
         SessionDto dto = new SessionDto();
         dto.setId(5L);
@@ -70,6 +69,8 @@ public class SessionMapperImplTest {
         assertEquals(1L, entity.getTeacher().getId());
         assertNotNull(entity.getUsers());
         assertEquals(2, entity.getUsers().size());
+        verify(userService, never()).findById(any());
+        verify(teacherService, never()).findById(any());
     }
 
     @Test
@@ -90,7 +91,8 @@ public class SessionMapperImplTest {
         injectServices(mapper, teacherService, userService);
 
         Teacher teacher = Teacher.builder().id(1L).firstName("T").lastName("L").build();
-        when(teacherService.findById(1L)).thenReturn(teacher);
+        when(teacherService.getReference(1L)).thenReturn(teacher);
+        when(userService.findAllById(java.util.Collections.emptyList())).thenReturn(new java.util.ArrayList<>());
 
         SessionDto dto = new SessionDto();
         dto.setId(6L);
@@ -290,17 +292,16 @@ public class SessionMapperImplTest {
     }
 
     @Test
-    public void ToEntityWhenUserServiceReturnsNullInListPreservesNullEntry() throws Exception {
+    public void ToEntityWithUnknownUserIdThrowsBadRequest() throws Exception {
         // Given
         SessionMapperImpl mapper = new SessionMapperImpl();
         TeacherService teacherService = mock(TeacherService.class);
         UserService userService = mock(UserService.class);
         injectServices(mapper, teacherService, userService);
 
-        // teacher ok
-        when(teacherService.findById(2L)).thenReturn(Teacher.builder().id(2L).build());
-        // userService returns null for the id
-        when(userService.findById(42L)).thenReturn(null);
+        // userService reports the unknown id instead of mapping it to null
+        when(userService.findAllById(Arrays.asList(42L)))
+                .thenThrow(new com.openclassrooms.starterjwt.exception.BadRequestException("Unknown user ids: [42]"));
 
         SessionDto dto = new SessionDto();
         dto.setId(14L);
@@ -308,14 +309,41 @@ public class SessionMapperImplTest {
         dto.setTeacher_id(2L);
         dto.setUsers(Arrays.asList(42L));
 
+        // When / Then
+        assertThrows(com.openclassrooms.starterjwt.exception.BadRequestException.class, () -> mapper.toEntity(dto));
+    }
+
+
+    @Test
+    public void ToDtoWithParticipantIdsDoesNotTouchUsers() {
+        // Given: une session dont la collection users ne doit pas être lue
+        SessionMapperImpl mapper = new SessionMapperImpl();
+        Session session = spy(Session.builder().id(3L).name("Lazy").description("D")
+                .teacher(Teacher.builder().id(2L).build()).build());
+
         // When
-        Session entity = mapper.toEntity(dto);
+        SessionDto dto = mapper.toDto(session, Arrays.asList(10L, 11L));
 
         // Then
-        assertNotNull(entity);
-        assertNotNull(entity.getUsers());
-        assertEquals(1, entity.getUsers().size());
-        assertNull(entity.getUsers().get(0));
+        assertEquals(3L, dto.getId());
+        assertEquals(2L, dto.getTeacher_id());
+        assertEquals(Arrays.asList(10L, 11L), dto.getUsers());
+        verify(session, never()).getUsers();
     }
 
+    @Test
+    public void ToDtoListWithParticipantIdsDefaultsToEmpty() {
+        // Given
+        SessionMapperImpl mapper = new SessionMapperImpl();
+        Session withUsers = Session.builder().id(1L).build();
+        Session withoutUsers = Session.builder().id(2L).build();
+
+        // When
+        java.util.List<SessionDto> dtos = mapper.toDto(Arrays.asList(withUsers, withoutUsers),
+                java.util.Map.of(1L, Arrays.asList(10L)));
+
+        // Then
+        assertEquals(Arrays.asList(10L), dtos.get(0).getUsers());
+        assertTrue(dtos.get(1).getUsers().isEmpty());
+    }
 }
@@ -11,6 +11,8 @@ import org.springframework.security.core.AuthenticationException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
@@ -26,7 +28,9 @@ import java.util.Map;
 
 public class AuthEntryPointJwtTest {
 
-    AuthEntryPointJwt classUnderTest = new AuthEntryPointJwt();
+    AuthFailureLogger authFailureLogger = new AuthFailureLogger(60000, new SimpleMeterRegistry());
+
+    AuthEntryPointJwt classUnderTest = new AuthEntryPointJwt(authFailureLogger);
 
     @Test
     public void testCommence() throws IOException, ServletException {
@@ -76,6 +80,7 @@ public class AuthEntryPointJwtTest {
         assertEquals("Unauthorized", body.get("error"));
         assertEquals("Invalid token", body.get("message"));
         assertEquals("/api/test", body.get("path"));
+        assertEquals(1, authFailureLogger.total(AuthFailureLogger.Type.UNAUTHORIZED));
     }
 
 }
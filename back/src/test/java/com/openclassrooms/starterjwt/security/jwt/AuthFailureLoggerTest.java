@@ -0,0 +1,85 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests pour {@link AuthFailureLogger}
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en
+ * français.
+ */
+class AuthFailureLoggerTest {
+
+    private AtomicLong now;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AuthFailureLogger authFailureLogger;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    private Logger logbackLogger;
+
+    @BeforeEach
+    void setup() {
+        now = new AtomicLong(0);
+        meterRegistry = new SimpleMeterRegistry();
+        authFailureLogger = new AuthFailureLogger(10000, meterRegistry, now::get);
+
+        logbackLogger = (Logger) LoggerFactory.getLogger(AuthFailureLogger.class);
+        appender = new ListAppender<>();
+        appender.start();
+        logbackLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logbackLogger.detachAppender(appender);
+    }
+
+    @Test
+    void floodOfFailuresLogsOncePerInterval() {
+        // Given / When: 1000 tokens invalides dans le même intervalle
+        for (int i = 0; i < 1000; i++) {
+            authFailureLogger.record(JwtValidationResult.Status.INVALID_SIGNATURE, "bad signature");
+        }
+
+        // Then: une seule ligne, mais tous les échecs sont comptés
+        assertEquals(1, appender.list.size());
+        assertEquals(1000, authFailureLogger.total(AuthFailureLogger.Type.INVALID_SIGNATURE));
+        assertEquals(1000.0, meterRegistry.get("auth.failures").tag("type", "INVALID_SIGNATURE").counter().count());
+    }
+
+    @Test
+    void nextReportAggregatesFailuresPerType() {
+        // Given: un premier échec journalisé, puis d'autres dans l'intervalle
+        authFailureLogger.record(AuthFailureLogger.Type.UNAUTHORIZED, "first");
+        for (int i = 0; i < 5; i++) {
+            authFailureLogger.record(JwtValidationResult.Status.EXPIRED, "expired");
+        }
+        authFailureLogger.record(JwtValidationResult.Status.MALFORMED, "malformed");
+
+        // When: l'intervalle est écoulé
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        authFailureLogger.record(JwtValidationResult.Status.MALFORMED, "malformed");
+
+        // Then: le second rapport résume les compteurs depuis le premier
+        assertEquals(2, appender.list.size());
+        String report = appender.list.get(1).getFormattedMessage();
+        assertTrue(report.contains("EXPIRED=5"), report);
+        assertTrue(report.contains("MALFORMED=2"), report);
+        assertFalse(report.contains("UNAUTHORIZED"), report);
+    }
+}
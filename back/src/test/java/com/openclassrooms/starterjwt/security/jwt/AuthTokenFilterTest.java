@@ -12,9 +12,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -35,6 +38,7 @@ public class AuthTokenFilterTest {
     private AuthTokenFilter filter;
     private JwtUtils mockedJwtUtils;
     private UserDetailsServiceImpl mockedUserDetailsService;
+    private AuthFailureLogger authFailureLogger;
 
     @BeforeEach
     public void setup() throws Exception {
@@ -51,6 +55,17 @@ public class AuthTokenFilterTest {
         Field udsField = AuthTokenFilter.class.getDeclaredField("userDetailsService");
         udsField.setAccessible(true);
         udsField.set(filter, mockedUserDetailsService);
+
+        Field cacheField = AuthTokenFilter.class.getDeclaredField("userDetailsCache");
+        cacheField.setAccessible(true);
+        cacheField.set(filter, new UserDetailsCache(100, 60000, new SimpleMeterRegistry()));
+
+        Field tokenCacheField = AuthTokenFilter.class.getDeclaredField("verifiedTokenCache");
+        tokenCacheField.setAccessible(true);
+        tokenCacheField.set(filter, new VerifiedTokenCache(100, new SimpleMeterRegistry()));
+
+        authFailureLogger = new AuthFailureLogger(60000, new SimpleMeterRegistry());
+        setField("authFailureLogger", authFailureLogger);
     }
 
     @AfterEach
@@ -70,8 +85,7 @@ public class AuthTokenFilterTest {
         String username = "user@example.com";
 
         when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(mockedJwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(mockedJwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenReturn(validResult(username));
 
         UserDetailsImpl userDetails = UserDetailsImpl.builder()
                 .id(42L)
@@ -91,6 +105,10 @@ public class AuthTokenFilterTest {
         verify(chain).doFilter(req, resp);
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        // le token n'est analysé qu'une seule fois
+        verify(mockedJwtUtils, times(1)).parseJwtToken(jwt);
+        verify(mockedJwtUtils, never()).validateJwtToken(anyString());
+        verify(mockedJwtUtils, never()).getUserNameFromJwtToken(anyString());
     }
 
     @Test
@@ -136,14 +154,16 @@ public class AuthTokenFilterTest {
 
         String jwt = "invalid.jwt";
         when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(mockedJwtUtils.validateJwtToken(jwt)).thenReturn(false);
+        when(mockedJwtUtils.parseJwtToken(jwt))
+                .thenReturn(JwtValidationResult.invalid(JwtValidationResult.Status.MALFORMED, "malformed"));
 
         // When
         filter.doFilterInternal(req, resp, chain);
 
-        // Then
+        // Then: l'échec est comptabilisé par type
         verify(chain).doFilter(req, resp);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, authFailureLogger.total(AuthFailureLogger.Type.MALFORMED));
     }
 
     @Test
@@ -155,7 +175,7 @@ public class AuthTokenFilterTest {
 
         String jwt = "bad.jwt";
         when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(mockedJwtUtils.validateJwtToken(jwt)).thenThrow(new RuntimeException("boom"));
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenThrow(new RuntimeException("boom"));
 
         // When
         filter.doFilterInternal(req, resp, chain);
@@ -175,8 +195,7 @@ public class AuthTokenFilterTest {
         String jwt = "valid.jwt";
         String username = "user@example.com";
         when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(mockedJwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(mockedJwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenReturn(validResult(username));
         when(mockedUserDetailsService.loadUserByUsername(username)).thenThrow(new RuntimeException("user load error"));
 
         // When
@@ -185,6 +204,7 @@ public class AuthTokenFilterTest {
         // Then
         verify(chain).doFilter(req, resp);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, authFailureLogger.total(AuthFailureLogger.Type.PRINCIPAL_LOOKUP));
     }
 
     @Test
@@ -201,6 +221,10 @@ public class AuthTokenFilterTest {
         assertThrows(IOException.class, () -> filter.doFilterInternal(req, resp, chain));
     }
 
+    private static JwtValidationResult validResult(String username) {
+        return JwtValidationResult.valid(Jwts.claims().setSubject(username));
+    }
+
     // Tests pour la méthode privée parseJwt via reflection
     @Test
     public void testParseJwtNullHeaderReturnsNull() throws Exception {
@@ -262,4 +286,118 @@ public class AuthTokenFilterTest {
         assertNull(res);
     }
 
+
+    @Test
+    public void testDoFilterInternalStatelessPrincipalSkipsUserDetailsService() throws Exception {
+        // Given: le mode principal sans état est activé et le token porte l'identité
+        setField("statelessPrincipal", true);
+        setField("principalMaxStalenessMs", 300000L);
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        FilterChain chain = Mockito.mock(FilterChain.class);
+
+        String jwt = "valid.jwt";
+        JwtValidationResult result = validResult("user@example.com");
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(42L).username("user@example.com").build();
+
+        when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenReturn(result);
+        when(mockedJwtUtils.getUserDetailsFromJwtToken(result, 300000L)).thenReturn(principal);
+
+        // When
+        filter.doFilterInternal(req, resp, chain);
+
+        // Then: le principal vient des claims, aucune requête en base
+        verify(chain).doFilter(req, resp);
+        assertEquals(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verifyNoInteractions(mockedUserDetailsService);
+    }
+
+    @Test
+    public void testDoFilterInternalStatelessPrincipalTooOldFallsBackToDatabase() throws Exception {
+        // Given: le mode sans état est activé mais les claims sont trop anciens
+        setField("statelessPrincipal", true);
+        setField("principalMaxStalenessMs", 300000L);
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        FilterChain chain = Mockito.mock(FilterChain.class);
+
+        String jwt = "valid.jwt";
+        String username = "user@example.com";
+        JwtValidationResult result = validResult(username);
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(42L).username(username).build();
+
+        when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenReturn(result);
+        when(mockedJwtUtils.getUserDetailsFromJwtToken(result, 300000L)).thenReturn(null);
+        when(mockedUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+
+        // When
+        filter.doFilterInternal(req, resp, chain);
+
+        // Then: le principal est rechargé depuis la base
+        verify(mockedUserDetailsService).loadUserByUsername(username);
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    public void testDoFilterInternalSecondRequestUsesCachedUserDetails() throws ServletException, IOException {
+        // Given: deux requêtes successives avec le token du même utilisateur
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        FilterChain chain = Mockito.mock(FilterChain.class);
+
+        String jwt = "valid.jwt";
+        String username = "user@example.com";
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(42L).username(username).build();
+
+        when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenReturn(validResult(username));
+        when(mockedUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+
+        // When
+        filter.doFilterInternal(req, resp, chain);
+        SecurityContextHolder.clearContext();
+        filter.doFilterInternal(req, resp, chain);
+
+        // Then: une seule lecture en base pour les deux requêtes
+        verify(mockedUserDetailsService, times(1)).loadUserByUsername(username);
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    public void testDoFilterInternalRepeatedTokenIsVerifiedOnce() throws ServletException, IOException {
+        // Given: le même token, valide une minute, présenté deux fois
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        FilterChain chain = Mockito.mock(FilterChain.class);
+
+        String jwt = "valid.jwt";
+        String username = "user@example.com";
+        io.jsonwebtoken.Claims claims = Jwts.claims().setSubject(username)
+                .setExpiration(new java.util.Date(System.currentTimeMillis() + 60000));
+        claims.put(JwtUtils.CLAIM_USER_ID, 42L);
+        JwtValidationResult result = JwtValidationResult.valid(claims);
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(42L).username(username).build();
+
+        when(req.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(mockedJwtUtils.parseJwtToken(jwt)).thenReturn(result);
+        when(mockedUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+
+        // When
+        filter.doFilterInternal(req, resp, chain);
+        SecurityContextHolder.clearContext();
+        filter.doFilterInternal(req, resp, chain);
+
+        // Then: la signature n'est vérifiée qu'une fois
+        verify(mockedJwtUtils, times(1)).parseJwtToken(jwt);
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = AuthTokenFilter.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(filter, value);
+    }
+
 }
@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests pour {@link JwtSignerConfig}
+ */
+class JwtSignerConfigTest {
+
+    private final JwtSignerConfig config = new JwtSignerConfig();
+
+    @Test
+    void jwtSignerSelectsImplementationFromAlgorithm(@TempDir Path keyDir) throws Exception {
+        // Given
+        EcJwtKeyRingTest.writeKey(keyDir, "k1", EcJwtKeyRingTest.generateKeyPair(), true);
+
+        // When / Then
+        assertInstanceOf(HmacJwtSigner.class, config.jwtSigner("HS512", "secret", "", 60000));
+        assertInstanceOf(EcJwtKeyRing.class, config.jwtSigner("ES256", "secret", keyDir.toString(), 60000));
+        assertThrows(IllegalArgumentException.class, () -> config.jwtSigner("none", "secret", "", 60000));
+    }
+
+    @Test
+    void es256RefusesToStartWithoutSharedKeys() {
+        // Given / When / Then: pas de clé générée en mémoire, propre à un seul nœud
+        assertThrows(IllegalStateException.class, () -> config.jwtSigner("ES256", "secret", "", 60000));
+    }
+}
@@ -3,7 +3,6 @@ package com.openclassrooms.starterjwt.security.jwt;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-import java.lang.reflect.Field;
 import java.util.Date;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +16,7 @@ import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.SigningKeyResolver;
 import io.jsonwebtoken.UnsupportedJwtException;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -33,18 +33,9 @@ public class JwtUtilsTest {
     private final String secret = "testSecretKeyForJwt";
 
     @BeforeEach
-    public void setup() throws Exception {
-        jwtUtils = new JwtUtils();
-
-        // injecter les valeurs privées annotées @Value via reflection
-        Field secretField = JwtUtils.class.getDeclaredField("jwtSecret");
-        secretField.setAccessible(true);
-        secretField.set(jwtUtils, secret);
-
-        Field expField = JwtUtils.class.getDeclaredField("jwtExpirationMs");
-        expField.setAccessible(true);
-        // 1 heure
-        expField.set(jwtUtils, 3600000);
+    public void setup() {
+        // signature HS512 sur le secret, expiration d'une heure
+        jwtUtils = new JwtUtils(new HmacJwtSigner(secret), 3600000);
     }
 
     @Test
@@ -152,7 +143,7 @@ public class JwtUtilsTest {
         try (MockedStatic<io.jsonwebtoken.Jwts> mocked = Mockito.mockStatic(Jwts.class)) {
             JwtParser parser = mock(JwtParser.class);
             mocked.when(Jwts::parser).thenReturn(parser);
-            when(parser.setSigningKey(anyString())).thenReturn(parser);
+            when(parser.setSigningKeyResolver(any(SigningKeyResolver.class))).thenReturn(parser);
             when(parser.parseClaimsJws(anyString())).thenThrow(new UnsupportedJwtException("unsupported"));
 
             // When
@@ -163,4 +154,180 @@ public class JwtUtilsTest {
         }
     }
 
+
+    @Test
+    public void testParseJwtTokenValidTokenReturnsSubjectExpirationAndClaims() {
+        // Given: un token JWT correctement signé
+        Date expiration = new Date((new Date()).getTime() + 60000);
+        String token = Jwts.builder()
+                .setSubject("dave@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(expiration)
+                .claim("custom", "value")
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+
+        // When: une seule analyse du token
+        JwtValidationResult result = jwtUtils.parseJwtToken(token);
+
+        // Then: le résultat porte le sujet, l'expiration et les claims
+        assertTrue(result.isValid());
+        assertEquals(JwtValidationResult.Status.VALID, result.getStatus());
+        assertEquals("dave@example.com", result.getSubject());
+        assertEquals(expiration.getTime() / 1000, result.getExpiration().getEpochSecond());
+        assertEquals("value", result.getClaims().get("custom"));
+        assertNull(result.getMessage());
+        assertThrows(UnsupportedOperationException.class, () -> result.getClaims().put("custom", "other"));
+    }
+
+    @Test
+    public void testParseJwtTokenExpiredReturnsExpiredStatus() {
+        // Given: token expiré
+        String token = Jwts.builder()
+                .setSubject("erin@example.com")
+                .setIssuedAt(new Date((new Date()).getTime() - 100000))
+                .setExpiration(new Date((new Date()).getTime() - 50000))
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+
+        // When
+        JwtValidationResult result = jwtUtils.parseJwtToken(token);
+
+        // Then: invalide, avec la raison et sans sujet
+        assertFalse(result.isValid());
+        assertEquals(JwtValidationResult.Status.EXPIRED, result.getStatus());
+        assertNull(result.getSubject());
+        assertTrue(result.getClaims().isEmpty());
+        assertNotNull(result.getMessage());
+    }
+
+    @Test
+    public void testParseJwtTokenReportsFailureReason() {
+        // Given: un token signé avec une autre clé, un token mal formé et une chaîne vide
+        String otherSigned = Jwts.builder()
+                .setSubject("frank@example.com")
+                .setExpiration(new Date((new Date()).getTime() + 60000))
+                .signWith(SignatureAlgorithm.HS512, "otherSecret")
+                .compact();
+
+        // When / Then: chaque échec est typé
+        assertEquals(JwtValidationResult.Status.INVALID_SIGNATURE, jwtUtils.parseJwtToken(otherSigned).getStatus());
+        assertEquals(JwtValidationResult.Status.MALFORMED, jwtUtils.parseJwtToken("not.a.jwt").getStatus());
+        assertEquals(JwtValidationResult.Status.EMPTY, jwtUtils.parseJwtToken("").getStatus());
+    }
+
+    @Test
+    public void testParseJwtTokenReusesTheSameParser() {
+        // Given: un token valide
+        String token = Jwts.builder()
+                .setSubject("grace@example.com")
+                .setExpiration(new Date((new Date()).getTime() + 60000))
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+        jwtUtils.parseJwtToken(token);
+
+        // When: on analyse plusieurs tokens alors que Jwts.parser() est surveillé
+        try (MockedStatic<Jwts> mocked = Mockito.mockStatic(Jwts.class)) {
+            JwtValidationResult result = jwtUtils.parseJwtToken(token);
+            jwtUtils.getUserNameFromJwtToken(token);
+
+            // Then: aucun nouveau parser n'est construit
+            assertTrue(result.isValid());
+            mocked.verify(Jwts::parser, never());
+        }
+    }
+
+
+    @Test
+    public void testGenerateJwtTokenEmbedsIdentityClaims() {
+        // Given: un principal administrateur
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(7L)
+                .username("admin@example.com")
+                .firstName("Ada")
+                .lastName("Admin")
+                .password("pwd")
+                .admin(true)
+                .build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+        // When: génération puis reconstruction du principal depuis les claims
+        String token = jwtUtils.generateJwtToken(auth);
+        JwtValidationResult result = jwtUtils.parseJwtToken(token);
+        UserDetailsImpl principal = jwtUtils.getUserDetailsFromJwtToken(result, 60000);
+
+        // Then: l'identité est restituée sans le mot de passe
+        assertNotNull(principal);
+        assertEquals(7L, principal.getId());
+        assertEquals("admin@example.com", principal.getUsername());
+        assertEquals("Ada", principal.getFirstName());
+        assertEquals("Admin", principal.getLastName());
+        assertTrue(principal.getAdmin());
+        assertNull(principal.getPassword());
+    }
+
+    @Test
+    public void testGetUserDetailsFromJwtTokenTooOldReturnsNull() {
+        // Given: un token émis il y a 10 minutes avec les claims d'identité
+        String token = Jwts.builder()
+                .setSubject("old@example.com")
+                .claim("id", 3L)
+                .setIssuedAt(new Date((new Date()).getTime() - 600000))
+                .setExpiration(new Date((new Date()).getTime() + 60000))
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+
+        // When: la fraîcheur maximale autorisée est de 5 minutes
+        UserDetailsImpl principal = jwtUtils.getUserDetailsFromJwtToken(jwtUtils.parseJwtToken(token), 300000);
+
+        // Then: il faut rafraîchir le principal depuis la base
+        assertNull(principal);
+    }
+
+    @Test
+    public void testGetUserDetailsFromJwtTokenWithoutIdentityClaimsReturnsNull() {
+        // Given: un token ancien format, sans claim id
+        String token = Jwts.builder()
+                .setSubject("legacy@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + 60000))
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+
+        // When
+        UserDetailsImpl principal = jwtUtils.getUserDetailsFromJwtToken(jwtUtils.parseJwtToken(token), 300000);
+
+        // Then
+        assertNull(principal);
+    }
+
+
+    @Test
+    public void testEs256SignerRoundTripAndJwks(@org.junit.jupiter.api.io.TempDir java.nio.file.Path keyDir) throws Exception {
+        // Given: JwtUtils configuré avec un trousseau ES256
+        EcJwtKeyRingTest.writeKey(keyDir, "k1", EcJwtKeyRingTest.generateKeyPair(), true);
+        EcJwtKeyRing keyRing = new EcJwtKeyRing(keyDir, 3600000, java.time.Clock.systemUTC());
+        jwtUtils = new JwtUtils(keyRing, 3600000);
+
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username("es@example.com").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+        // When
+        String token = jwtUtils.generateJwtToken(auth);
+        String hmacToken = Jwts.builder().setSubject("es@example.com")
+                .setExpiration(new Date((new Date()).getTime() + 60000))
+                .signWith(SignatureAlgorithm.HS512, secret).compact();
+
+        // Then: le token ES256 est accepté, un token HS512 est refusé, la clé publique est exposée
+        assertEquals("es@example.com", jwtUtils.parseJwtToken(token).getSubject());
+        assertEquals(JwtValidationResult.Status.INVALID_SIGNATURE, jwtUtils.parseJwtToken(hmacToken).getStatus());
+        assertEquals(1, jwtUtils.getPublicJwks().size());
+    }
+
+    @Test
+    public void testHs512SignerPublishesNoJwk() {
+        // Given / When / Then: le secret partagé n'est jamais publié
+        assertTrue(jwtUtils.getPublicJwks().isEmpty());
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.events.UserChangedEvent;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests pour {@link VerifiedTokenCache}
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en
+ * français.
+ */
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new VerifiedTokenCache(100, new SimpleMeterRegistry());
+    }
+
+    private static JwtValidationResult validUntil(String subject, long expirationMillis) {
+        long userId = subject.startsWith("bob") ? 1L : 2L;
+        Claims claims = Jwts.claims().setSubject(subject).setExpiration(new Date(expirationMillis));
+        claims.put(JwtUtils.CLAIM_USER_ID, userId);
+        return JwtValidationResult.valid(claims);
+    }
+
+    @Test
+    void putThenGetReturnsVerifiedResult() {
+        // Given: un token vérifié valide une minute
+        JwtValidationResult result = validUntil("bob@example.com", System.currentTimeMillis() + 60000);
+
+        // When
+        cache.put("header.payload.signature", result);
+
+        // Then: il est retrouvé par son contenu, un autre token ne l'est pas
+        assertSame(result, cache.get("header.payload.signature"));
+        assertNull(cache.get("header.payload.other"));
+    }
+
+    @Test
+    void expiredTokenIsNeverReturned() {
+        // Given: un token dont l'expiration est déjà passée
+        cache.put("expired.token", validUntil("bob@example.com", System.currentTimeMillis() - 1000));
+
+        // When / Then
+        assertNull(cache.get("expired.token"));
+    }
+
+    @Test
+    void invalidResultIsNotCached() {
+        // Given: un résultat invalide
+        cache.put("bad.token", JwtValidationResult.invalid(JwtValidationResult.Status.INVALID_SIGNATURE, "bad"));
+
+        // When / Then
+        assertNull(cache.get("bad.token"));
+    }
+
+    @Test
+    void userChangedEventRevokesTokensOfThatUser() {
+        // Given: deux tokens de deux utilisateurs
+        long expiration = System.currentTimeMillis() + 60000;
+        cache.put("bob.token", validUntil("bob@example.com", expiration));
+        cache.put("alice.token", validUntil("alice@example.com", expiration));
+
+        // When: bob est modifié ou supprimé
+        cache.onUserChanged(new UserChangedEvent(1L, "bob@example.com"));
+
+        // Then: seul son token doit être revérifié
+        assertNull(cache.get("bob.token"));
+        assertNotNull(cache.get("alice.token"));
+    }
+
+    @Test
+    void userChangedEventRevokesReplacedAndReinsertedTokens() {
+        // Given: un token remis en cache, puis retiré et revérifié
+        long expiration = System.currentTimeMillis() + 60000;
+        cache.put("bob.token", validUntil("bob@example.com", expiration));
+        cache.put("bob.token", validUntil("bob@example.com", expiration));
+        cache.put("bob.other", validUntil("bob@example.com", expiration));
+        cache.invalidate("bob.other");
+        cache.put("bob.other", validUntil("bob@example.com", expiration));
+
+        // When
+        cache.onUserChanged(new UserChangedEvent(1L, "bob@example.com"));
+
+        // Then: l'index par sujet les retrouve tous les deux
+        assertNull(cache.get("bob.token"));
+        assertNull(cache.get("bob.other"));
+    }
+
+    @Test
+    void userChangedEventWithNewEmailRevokesTokensOfPreviousEmail() {
+        // Given: un token émis sous l'ancien email de bob
+        cache.put("bob.token", validUntil("bob@example.com", System.currentTimeMillis() + 60000));
+
+        // When: son email change, l'évènement porte le nouveau
+        cache.onUserChanged(new UserChangedEvent(1L, "robert@example.com"));
+
+        // Then: le token est retrouvé par l'id de l'utilisateur
+        assertNull(cache.get("bob.token"));
+    }
+
+    @Test
+    void tokenWithoutUserIdIsNotCached() {
+        // Given: un token qu'aucun évènement ne saurait révoquer
+        JwtValidationResult result = JwtValidationResult.valid(
+                Jwts.claims().setSubject("bob@example.com").setExpiration(new Date(System.currentTimeMillis() + 60000)));
+
+        // When
+        cache.put("anonymous.token", result);
+
+        // Then
+        assertNull(cache.get("anonymous.token"));
+    }
+
+    @Test
+    void invalidateRemovesSingleToken() {
+        // Given
+        cache.put("some.token", validUntil("bob@example.com", System.currentTimeMillis() + 60000));
+
+        // When
+        cache.invalidate("some.token");
+
+        // Then
+        assertNull(cache.get("some.token"));
+        assertEquals(1, cache.stats().missCount());
+    }
+}
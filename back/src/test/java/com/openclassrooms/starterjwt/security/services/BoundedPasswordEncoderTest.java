@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+/**
+ * Tests pour {@link BoundedPasswordEncoder}
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en
+ * français.
+ */
+class BoundedPasswordEncoderTest {
+
+    private PasswordEncoder delegate;
+
+    private ThreadPoolExecutor executor;
+
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setup() {
+        delegate = mock(PasswordEncoder.class);
+        // un seul thread et une file d'une seule tâche
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        encoder = new BoundedPasswordEncoder(delegate, executor, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void encodeAndMatchesRunOnExecutor() {
+        // Given: le délégué répond depuis un thread du pool
+        Thread caller = Thread.currentThread();
+        when(delegate.encode("pwd")).thenAnswer(i -> {
+            assertNotSame(caller, Thread.currentThread());
+            return "hash";
+        });
+        when(delegate.matches("pwd", "hash")).thenReturn(true);
+
+        // When / Then
+        assertEquals("hash", encoder.encode("pwd"));
+        assertTrue(encoder.matches("pwd", "hash"));
+    }
+
+    @Test
+    void saturatedExecutorFailsFastWithRetryAfter() throws Exception {
+        // Given: le thread est occupé et la file est pleine
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        executor.submit(() -> null);
+
+        // When
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> encoder.encode("pwd"));
+
+        // Then: rejet immédiat sans appel au délégué
+        assertEquals(3, e.getRetryAfterSeconds());
+        verifyNoInteractions(delegate);
+        release.countDown();
+    }
+
+    @Test
+    void delegateRuntimeExceptionIsRethrown() {
+        // Given
+        when(delegate.matches("pwd", "hash")).thenThrow(new IllegalArgumentException("bad hash"));
+
+        // When / Then: l'exception d'origine est propagée
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> encoder.matches("pwd", "hash"));
+        assertEquals("bad hash", e.getMessage());
+    }
+
+    @Test
+    void upgradeEncodingDelegatesDirectly() {
+        // Given
+        when(delegate.upgradeEncoding("hash")).thenReturn(true);
+
+        // When / Then
+        assertTrue(encoder.upgradeEncoding("hash"));
+        assertEquals(0, executor.getCompletedTaskCount());
+    }
+}
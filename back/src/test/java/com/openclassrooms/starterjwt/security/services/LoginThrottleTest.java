@@ -0,0 +1,223 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+/**
+ * Tests pour {@link LoginThrottle}
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en
+ * français.
+ */
+class LoginThrottleTest {
+
+    private static final String IP = "10.0.0.1";
+
+    private AtomicLong now;
+
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setup() {
+        now = new AtomicLong(1_000_000_000L);
+        // 3 tentatives par email, 10 par IP, recharge complète en 60 s, backoff de 1 s à 8 s
+        throttle = new LoginThrottle(3, 10, 60000, 1000, 900000, 1000, 8000, now::get);
+    }
+
+    private void advanceMs(long ms) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    @Test
+    void acquireRejectsOnceEmailBucketIsEmpty() {
+        // Given: le seau de l'email est vidé
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("bob@example.com", IP);
+        }
+
+        // When / Then: la tentative suivante est refusée avec un délai d'une recharge (20 s)
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("bob@example.com", IP));
+        assertEquals(20, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void emailLookupIsCaseInsensitive() {
+        // Given: trois tentatives avec des casses différentes
+        throttle.acquire("Bob@Example.com", IP);
+        throttle.acquire("bob@example.com ", IP);
+        throttle.acquire("BOB@EXAMPLE.COM", IP);
+
+        // When / Then: elles partagent le même seau
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("bob@example.com", IP));
+    }
+
+    @Test
+    void bucketRefillsOverTime() {
+        // Given: un seau vide
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("bob@example.com", IP);
+        }
+
+        // When: une période de recharge d'un jeton s'écoule
+        advanceMs(20000);
+
+        // Then: une nouvelle tentative est acceptée, pas la suivante
+        assertDoesNotThrow(() -> throttle.acquire("bob@example.com", IP));
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("bob@example.com", IP));
+    }
+
+    @Test
+    void ipBucketLimitsSprayingAcrossAccounts() {
+        // Given: dix comptes différents depuis la même IP
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user" + i + "@example.com", IP);
+        }
+
+        // When / Then: un onzième compte est refusé pour cette IP, pas pour une autre
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("other@example.com", IP));
+        assertDoesNotThrow(() -> throttle.acquire("other@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void rejectedEmailDoesNotSpendIpTokens() {
+        // Given: un email bloqué qui insiste depuis la même IP
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("bob@example.com", IP);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertThrows(TooManyRequestsException.class, () -> throttle.acquire("bob@example.com", IP));
+        }
+
+        // When / Then: les refus n'ont pas vidé le seau de l'IP (7 jetons restants)
+        for (int i = 0; i < 7; i++) {
+            throttle.acquire("user" + i + "@example.com", IP);
+        }
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("other@example.com", IP));
+    }
+
+    @Test
+    void rejectedIpDoesNotSpendEmailTokens() {
+        // Given: une IP épuisée par d'autres comptes
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user" + i + "@example.com", IP);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThrows(TooManyRequestsException.class, () -> throttle.acquire("bob@example.com", IP));
+        }
+
+        // When / Then: bob garde ses trois tentatives depuis une autre IP
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("bob@example.com", "10.0.0.2");
+        }
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("bob@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void failuresBackOffExponentially() {
+        // Given: deux échecs consécutifs
+        throttle.acquire("bob@example.com", IP);
+        throttle.recordFailure("bob@example.com", IP);
+        advanceMs(1000);
+        throttle.acquire("bob@example.com", IP);
+        throttle.recordFailure("bob@example.com", IP);
+
+        // When / Then: le blocage du compte passe à 2 s, les autres comptes de l'IP restent libres
+        advanceMs(1000);
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("bob@example.com", IP));
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> throttle.acquire("other@example.com", IP));
+        advanceMs(1000);
+        assertDoesNotThrow(() -> throttle.acquire("bob@example.com", IP));
+    }
+
+    @Test
+    void failuresCostAnExtraIpToken() {
+        // Given: cinq tentatives échouées depuis la même IP sur des comptes différents
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("user" + i + "@example.com", IP);
+            throttle.recordFailure("user" + i + "@example.com", IP);
+        }
+
+        // When / Then: le seau de l'IP (10 jetons) est épuisé
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("other@example.com", IP));
+    }
+
+    @Test
+    void backoffIsCapped() {
+        // Given: de nombreux échecs
+        for (int i = 0; i < 30; i++) {
+            throttle.recordFailure("bob@example.com", "10.0.0." + i);
+        }
+
+        // When / Then: le blocage ne dépasse pas le maximum de 8 s
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("bob@example.com", IP));
+        assertEquals(8, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void successResetsBackoff() {
+        // Given: un échec qui bloque l'email
+        throttle.recordFailure("bob@example.com", "10.0.0.9");
+
+        // When: une connexion réussit
+        throttle.recordSuccess("bob@example.com");
+
+        // Then: l'email n'est plus bloqué
+        assertDoesNotThrow(() -> throttle.acquire("bob@example.com", IP));
+    }
+
+    @Test
+    void idleBucketsAreEvicted() {
+        // Given: des seaux pour un email et une IP
+        throttle.acquire("bob@example.com", IP);
+        assertEquals(2, throttle.estimatedSize());
+
+        // When: ils restent inactifs plus longtemps que le délai configuré
+        advanceMs(900001);
+        throttle.acquire("alice@example.com", "10.0.0.2");
+
+        // Then: ils sont supprimés, seuls les nouveaux seaux restent
+        assertEquals(2, throttle.estimatedSize());
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedCapacity() throws InterruptedException {
+        // Given: 50 tentatives simultanées sur le même email
+        LoginThrottle shared = new LoginThrottle(5, 1000, 60000, 1000, 900000, 1000, 8000, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    shared.acquire("bob@example.com", IP);
+                    accepted.incrementAndGet();
+                } catch (TooManyRequestsException | InterruptedException e) {
+                    // refusée
+                }
+            });
+        }
+
+        // When
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then: exactement la capacité du seau est acceptée
+        assertEquals(5, accepted.get());
+    }
+}
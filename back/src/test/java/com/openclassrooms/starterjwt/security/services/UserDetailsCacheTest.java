@@ -0,0 +1,125 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.openclassrooms.starterjwt.events.UserChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests pour {@link UserDetailsCache}
+ * Chaque test utilise des commentaires Gherkin (Given / When / Then) en
+ * français.
+ */
+class UserDetailsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserDetailsCache cache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserDetailsCache(100, 60000, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private UserDetails load(String email) {
+        loads.incrementAndGet();
+        return UserDetailsImpl.builder().id(1L).username(email).build();
+    }
+
+    @Test
+    void getLoadsOnceThenServesFromCache() {
+        // Given / When: deux lectures du même email
+        UserDetails first = cache.get("bob@example.com", this::load);
+        UserDetails second = cache.get("bob@example.com", this::load);
+
+        // Then: un seul chargement, un hit et un miss comptabilisés
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void userChangedEventInvalidatesEntry() {
+        // Given: un utilisateur en cache
+        cache.get("bob@example.com", this::load);
+
+        // When: la ligne de l'utilisateur change
+        cache.onUserChanged(new UserChangedEvent(1L, "bob@example.com"));
+        cache.get("bob@example.com", this::load);
+
+        // Then: il est rechargé
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void userChangedEventWithNewEmailInvalidatesPreviousKey() {
+        // Given: un utilisateur en cache sous son ancien email
+        cache.get("old@example.com", this::load);
+
+        // When: l'email de l'utilisateur 1 est modifié
+        cache.onUserChanged(new UserChangedEvent(1L, "new@example.com"));
+        cache.get("old@example.com", this::load);
+
+        // Then: l'ancienne entrée a été retirée
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void userChangedEventLeavesOtherUsersCached() {
+        // Given: deux utilisateurs en cache
+        cache.get("old@example.com", this::load);
+        cache.get("alice@example.com", email -> UserDetailsImpl.builder().id(2L).username(email).build());
+
+        // When: l'utilisateur 1 change d'email
+        cache.onUserChanged(new UserChangedEvent(1L, "new@example.com"));
+
+        // Then: seule son entrée est retirée, par l'index des ids
+        assertNotNull(cache.get("alice@example.com", email -> fail("alice ne doit pas être rechargée")));
+        cache.get("old@example.com", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictedEntryLeavesTheIndex() {
+        // Given: une entrée invalidée à la main puis rechargée
+        cache.get("bob@example.com", this::load);
+        cache.invalidate("bob@example.com");
+        cache.get("bob@example.com", this::load);
+
+        // When
+        cache.onUserChanged(new UserChangedEvent(1L, "bob@example.com"));
+        cache.get("bob@example.com", this::load);
+
+        // Then: la seconde entrée est toujours retrouvée
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void maximumSizeBoundsTheCache() {
+        // Given: un cache limité à une entrée
+        UserDetailsCache smallCache = new UserDetailsCache(1, 60000, meterRegistry);
+
+        // When: plusieurs utilisateurs distincts
+        for (int i = 0; i < 50; i++) {
+            smallCache.get("user" + i + "@example.com", this::load);
+        }
+        smallCache.get("last@example.com", this::load);
+
+        // Then: des évictions ont eu lieu
+        assertTrue(smallCache.stats().evictionCount() > 0);
+    }
+}
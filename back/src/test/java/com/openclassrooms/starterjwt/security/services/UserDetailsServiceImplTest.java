@@ -33,6 +33,7 @@ class UserDetailsServiceImplTest {
         when(user.getFirstName()).thenReturn("Bob");
         when(user.getLastName()).thenReturn("Builder");
         when(user.getPassword()).thenReturn("hashed");
+        when(user.isAdmin()).thenReturn(true);
 
         when(userRepository.findByEmail("bob@example.com")).thenReturn(Optional.of(user));
 
@@ -46,6 +47,7 @@ class UserDetailsServiceImplTest {
         assertEquals("Bob", impl.getFirstName());
         assertEquals("Builder", impl.getLastName());
         assertEquals("hashed", impl.getPassword());
+        assertTrue(impl.getAdmin());
     }
 
     @Test
@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+
+public class ParticipantCountRepairTest {
+    SessionRepository mockSessionRepository = Mockito.mock(SessionRepository.class);
+
+    ParticipantCountRepair classUnderTest = new ParticipantCountRepair(mockSessionRepository, 2);
+
+    @Test
+    public void testRepairWalksSessionsInBatches() {
+        // Given: cinq sessions, lues par lots de deux
+        when(mockSessionRepository.findIdsAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(1L, 2L));
+        when(mockSessionRepository.findIdsAfter(2L, PageRequest.of(0, 2))).thenReturn(List.of(3L, 4L));
+        when(mockSessionRepository.findIdsAfter(4L, PageRequest.of(0, 2))).thenReturn(List.of(5L));
+        when(mockSessionRepository.recountParticipants(eq(List.of(3L, 4L)), any())).thenReturn(1);
+
+        // When
+        int repaired = classUnderTest.repair();
+
+        // Then: un recomptage par lot, le dernier lot incomplet arrête le parcours
+        assertEquals(1, repaired);
+        Mockito.verify(mockSessionRepository).recountParticipants(eq(List.of(1L, 2L)), any());
+        Mockito.verify(mockSessionRepository).recountParticipants(eq(List.of(5L)), any());
+        Mockito.verify(mockSessionRepository, Mockito.times(3)).findIdsAfter(any(), any());
+    }
+
+    @Test
+    public void testRepairWithoutSessions() {
+        // Given
+        when(mockSessionRepository.findIdsAfter(any(), any())).thenReturn(List.of());
+
+        // When / Then
+        assertEquals(0, classUnderTest.repair());
+        Mockito.verify(mockSessionRepository, Mockito.never()).recountParticipants(any(), any());
+    }
+}
@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+
+public class ParticipantCursorTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        // When
+        ParticipantCursor decoded = ParticipantCursor.decode(new ParticipantCursor(42L).encode());
+
+        // Then
+        assertEquals(42L, decoded.getUserId());
+    }
+
+    @Test
+    public void testDecodeRejectsGarbage() {
+        // When / Then
+        assertThrows(BadRequestException.class, () -> ParticipantCursor.decode("%%%"));
+        assertThrows(BadRequestException.class, () -> ParticipantCursor.decode("YTpi"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.openclassrooms.starterjwt.exception.GoneException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+
+public class SessionChangeFeedTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private static final LocalDateTime SETTLED = NOW.minusSeconds(2);
+
+    SessionRepository mockSessionRepository = Mockito.mock(SessionRepository.class);
+
+    SessionDeletionRepository mockSessionDeletionRepository = Mockito.mock(SessionDeletionRepository.class);
+
+    SessionChangeFeed classUnderTest = new SessionChangeFeed(mockSessionRepository, mockSessionDeletionRepository,
+            2, 2000, 86400000L, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+
+    @Test
+    public void testInitialSyncSkipsPastTombstones() {
+        // When
+        SessionChanges changes = classUnderTest.findChanges(null);
+
+        // Then: seules les pierres tombales postérieures à la borne stabilisée comptent
+        Mockito.verify(mockSessionDeletionRepository).findAfter(eq(SETTLED), eq(Long.MAX_VALUE), eq(SETTLED), any());
+        assertFalse(changes.isMore());
+        assertEquals(new SessionChangeToken(SETTLED, Long.MAX_VALUE, SETTLED, Long.MAX_VALUE), changes.getNext());
+    }
+
+    @Test
+    public void testTruncatedFeedResumesAfterLastRow() {
+        // Given: une ligne de plus que la taille de page
+        SessionChangeToken since = new SessionChangeToken(NOW.minusHours(1), 0L, NOW.minusHours(1), 0L);
+        LocalDateTime t = NOW.minusMinutes(30);
+        when(mockSessionRepository.findChangedAfter(any(), any(), any(), any())).thenReturn(List.of(
+                Session.builder().id(1L).updatedAt(t).build(),
+                Session.builder().id(2L).updatedAt(t).build(),
+                Session.builder().id(3L).updatedAt(t).build()));
+        when(mockSessionDeletionRepository.findAfter(any(), any(), any(), any()))
+                .thenReturn(List.of(new SessionDeletion(9L, t)));
+
+        // When
+        SessionChanges changes = classUnderTest.findChanges(since);
+
+        // Then
+        assertTrue(changes.isMore());
+        assertEquals(2, changes.getSessions().size());
+        assertEquals(List.of(9L), changes.getDeletedIds());
+        assertEquals(new SessionChangeToken(t, 2L, SETTLED, Long.MAX_VALUE), changes.getNext());
+    }
+
+    @Test
+    public void testWatermarkOlderThanRetentionIsGone() {
+        // Given
+        SessionChangeToken since = new SessionChangeToken(NOW.minusDays(2), 0L, NOW.minusDays(2), 0L);
+
+        // When / Then
+        assertThrows(GoneException.class, () -> classUnderTest.findChanges(since));
+        Mockito.verifyNoInteractions(mockSessionRepository);
+    }
+
+    @Test
+    public void testPruneDeletesTombstonesPastRetention() {
+        // When
+        classUnderTest.pruneDeletions();
+
+        // Then
+        Mockito.verify(mockSessionDeletionRepository).deleteOlderThan(NOW.minusDays(1));
+    }
+
+    @Test
+    public void testRecordDeletionStampsNow() {
+        // When
+        classUnderTest.recordDeletion(5L);
+
+        // Then
+        Mockito.verify(mockSessionDeletionRepository).record(5L, NOW);
+    }
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+
+public class SessionChangeTokenTest {
+
+    @Test
+    public void testEncodeDecodeRoundTripKeepsMicroseconds() {
+        // Given
+        SessionChangeToken token = new SessionChangeToken(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123456000), 42L,
+                LocalDateTime.of(2024, 3, 2, 8, 0, 0, 1000), Long.MAX_VALUE);
+
+        // When
+        SessionChangeToken decoded = SessionChangeToken.decode(token.encode());
+
+        // Then
+        assertEquals(token, decoded);
+    }
+
+    @Test
+    public void testDecodeRejectsGarbage() {
+        // When / Then
+        assertThrows(BadRequestException.class, () -> SessionChangeToken.decode("%%%"));
+        assertThrows(BadRequestException.class, () -> SessionChangeToken.decode("YTpi"));
+        assertThrows(BadRequestException.class, () -> SessionChangeToken.decode("MTox"));
+    }
+}
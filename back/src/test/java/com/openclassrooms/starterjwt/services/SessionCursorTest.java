@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+
+public class SessionCursorTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        // Given
+        Session session = Session.builder().id(42L).date(new Date(1700000000000L)).build();
+
+        // When
+        SessionCursor decoded = SessionCursor.decode(SessionCursor.of(session).encode());
+
+        // Then
+        assertEquals(new Date(1700000000000L), decoded.getDate());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    public void testDecodeRejectsGarbage() {
+        // When / Then
+        assertThrows(BadRequestException.class, () -> SessionCursor.decode("%%%"));
+        assertThrows(BadRequestException.class, () -> SessionCursor.decode("bm9zZXBhcmF0b3I"));
+        assertThrows(BadRequestException.class, () -> SessionCursor.decode("YTpi"));
+    }
+}
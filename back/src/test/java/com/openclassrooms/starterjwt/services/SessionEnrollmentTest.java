@@ -0,0 +1,223 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+public class SessionEnrollmentTest {
+    SessionRepository mockSessionRepository = Mockito.mock(SessionRepository.class);
+
+    UserRepository mockUserRepository = Mockito.mock(UserRepository.class);
+
+    ApplicationEventPublisher mockEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+
+    SessionEnrollment classUnderTest = new SessionEnrollment(mockSessionRepository, mockUserRepository, mockEventPublisher);
+
+    Long sessionId = 1L;
+
+    Long userId = 2L;
+
+    private List<SessionChangedEvent> publishedEvents() {
+        ArgumentCaptor<SessionChangedEvent> events = ArgumentCaptor.forClass(SessionChangedEvent.class);
+        Mockito.verify(mockEventPublisher, Mockito.atLeast(0)).publishEvent(events.capture());
+        return events.getAllValues();
+    }
+
+    @Test
+    public void testEnrollTakesSeatWithThreeStatements() {
+        // Given
+        when(mockSessionRepository.claimSeat(eq(sessionId), any())).thenReturn(1);
+        when(mockSessionRepository.insertParticipant(sessionId, userId)).thenReturn(1);
+
+        // When
+        boolean seated = classUnderTest.enroll(sessionId, userId);
+
+        // Then: une mise à jour conditionnelle du compteur, un INSERT, la sortie de la file, aucun COUNT(*)
+        assertTrue(seated);
+        Mockito.verify(mockSessionRepository).claimSeat(eq(sessionId), any());
+        Mockito.verify(mockSessionRepository).insertParticipant(sessionId, userId);
+        Mockito.verify(mockSessionRepository).deleteWaitlisted(sessionId, userId);
+        Mockito.verifyNoMoreInteractions(mockSessionRepository);
+        Mockito.verifyNoInteractions(mockUserRepository);
+        assertEquals(SessionChangedEvent.Type.PARTICIPATED, publishedEvents().get(0).getType());
+    }
+
+    @Test
+    public void testEnrollWaitlistsWhenFull() {
+        // Given
+        when(mockSessionRepository.claimSeat(eq(sessionId), any())).thenReturn(0);
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(mockSessionRepository.insertWaitlisted(eq(sessionId), eq(userId), any())).thenReturn(1);
+
+        // When
+        boolean seated = classUnderTest.enroll(sessionId, userId);
+
+        // Then: la place est redemandée sous verrou avant de rejoindre la file
+        assertFalse(seated);
+        Mockito.verify(mockSessionRepository, Mockito.times(2)).claimSeat(eq(sessionId), any());
+        Mockito.verify(mockSessionRepository, Mockito.never()).insertParticipant(any(), any());
+        assertEquals(SessionChangedEvent.Type.WAITLISTED, publishedEvents().get(0).getType());
+    }
+
+    @Test
+    public void testEnrollUnknownSessionThrowsNotFound() {
+        // Given
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(NotFoundException.class, () -> classUnderTest.enroll(sessionId, userId));
+    }
+
+    @Test
+    public void testEnrollUnknownUserThrowsNotFound() {
+        // Given: la place est prise puis rendue par le rollback
+        when(mockSessionRepository.claimSeat(eq(sessionId), any())).thenReturn(1);
+        when(mockSessionRepository.insertParticipant(sessionId, userId)).thenReturn(0);
+        when(mockSessionRepository.existsById(sessionId)).thenReturn(true);
+        when(mockUserRepository.existsById(userId)).thenReturn(false);
+
+        // When / Then
+        assertThrows(NotFoundException.class, () -> classUnderTest.enroll(sessionId, userId));
+        assertTrue(publishedEvents().isEmpty());
+    }
+
+    @Test
+    public void testEnrollAlreadyParticipantThrowsBadRequest() {
+        // Given
+        when(mockSessionRepository.claimSeat(eq(sessionId), any())).thenReturn(1);
+        when(mockSessionRepository.insertParticipant(sessionId, userId)).thenReturn(0);
+        when(mockSessionRepository.existsById(sessionId)).thenReturn(true);
+        when(mockUserRepository.existsById(userId)).thenReturn(true);
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> classUnderTest.enroll(sessionId, userId));
+    }
+
+    @Test
+    public void testEnrollParticipantOfFullSessionIsNotWaitlisted() {
+        // Given
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(mockSessionRepository.countParticipation(sessionId, userId)).thenReturn(1L);
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> classUnderTest.enroll(sessionId, userId));
+        Mockito.verify(mockSessionRepository, Mockito.never()).insertWaitlisted(any(), any(), any());
+    }
+
+    @Test
+    public void testLeaveHandsSeatToWaitlistHead() {
+        // Given: deux personnes en attente, une place libérée
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(mockSessionRepository.deleteParticipant(sessionId, userId)).thenReturn(1);
+        when(mockSessionRepository.findWaitlistHead(sessionId)).thenReturn(Optional.of(7L)).thenReturn(Optional.of(8L));
+        when(mockSessionRepository.claimSeat(eq(sessionId), any())).thenReturn(1, 0);
+        when(mockSessionRepository.insertParticipant(sessionId, 7L)).thenReturn(1);
+
+        // When
+        classUnderTest.leave(sessionId, userId);
+
+        // Then: la session est verrouillée avant la table des participants, puis seule la tête
+        // de file est promue
+        InOrder lockOrder = Mockito.inOrder(mockSessionRepository);
+        lockOrder.verify(mockSessionRepository).lockById(sessionId);
+        lockOrder.verify(mockSessionRepository).deleteParticipant(sessionId, userId);
+        Mockito.verify(mockSessionRepository).releaseSeat(eq(sessionId), any());
+        Mockito.verify(mockSessionRepository).deleteWaitlisted(sessionId, 7L);
+        Mockito.verify(mockSessionRepository).insertParticipant(sessionId, 7L);
+        Mockito.verify(mockSessionRepository, Mockito.never()).insertParticipant(sessionId, 8L);
+        List<SessionChangedEvent> events = publishedEvents();
+        assertEquals(SessionChangedEvent.Type.UNPARTICIPATED, events.get(0).getType());
+        assertEquals(SessionChangedEvent.Type.PARTICIPATED, events.get(1).getType());
+        assertEquals(7L, events.get(1).getUserId());
+    }
+
+    @Test
+    public void testPromoteSkipsQueuedUserThatCannotBeInserted() {
+        // Given: la tête de file a été supprimée entre-temps
+        when(mockSessionRepository.findWaitlistHead(sessionId))
+                .thenReturn(Optional.of(7L))
+                .thenReturn(Optional.of(8L))
+                .thenReturn(Optional.empty());
+        when(mockSessionRepository.claimSeat(eq(sessionId), any())).thenReturn(1);
+        when(mockSessionRepository.insertParticipant(sessionId, 7L)).thenReturn(0);
+        when(mockSessionRepository.insertParticipant(sessionId, 8L)).thenReturn(1);
+
+        // When
+        classUnderTest.promote(sessionId);
+
+        // Then: la place est rendue puis donnée au suivant
+        Mockito.verify(mockSessionRepository).deleteWaitlisted(sessionId, 7L);
+        Mockito.verify(mockSessionRepository).releaseSeat(eq(sessionId), any());
+        Mockito.verify(mockSessionRepository, Mockito.times(2)).claimSeat(eq(sessionId), any());
+        List<SessionChangedEvent> events = publishedEvents();
+        assertEquals(1, events.size());
+        assertEquals(8L, events.get(0).getUserId());
+    }
+
+    @Test
+    public void testLeaveWithEmptyWaitlistOnlyReleasesSeat() {
+        // Given
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(mockSessionRepository.deleteParticipant(sessionId, userId)).thenReturn(1);
+        when(mockSessionRepository.findWaitlistHead(sessionId)).thenReturn(Optional.empty());
+
+        // When
+        classUnderTest.leave(sessionId, userId);
+
+        // Then
+        Mockito.verify(mockSessionRepository, Mockito.never()).claimSeat(any(), any());
+    }
+
+    @Test
+    public void testLeaveWaitlist() {
+        // Given
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(mockSessionRepository.deleteParticipant(sessionId, userId)).thenReturn(0);
+        when(mockSessionRepository.deleteWaitlisted(sessionId, userId)).thenReturn(1);
+
+        // When
+        classUnderTest.leave(sessionId, userId);
+
+        // Then: aucune place n'est rendue
+        Mockito.verify(mockSessionRepository, Mockito.never()).releaseSeat(any(), any());
+        assertEquals(SessionChangedEvent.Type.UNWAITLISTED, publishedEvents().get(0).getType());
+    }
+
+    @Test
+    public void testLeaveUnknownSessionThrowsNotFound() {
+        // Given
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(NotFoundException.class, () -> classUnderTest.leave(sessionId, userId));
+        Mockito.verify(mockSessionRepository, Mockito.never()).deleteParticipant(any(), any());
+    }
+
+    @Test
+    public void testLeaveNonParticipantThrowsBadRequest() {
+        // Given
+        when(mockSessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> classUnderTest.leave(sessionId, userId));
+    }
+}
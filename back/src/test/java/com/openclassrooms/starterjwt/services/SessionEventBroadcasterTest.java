@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SessionEventBroadcasterTest {
+    // Tâches d'envoi retenues, comme si chaque abonné était trop lent pour être vidé
+    List<Runnable> pending = new ArrayList<>();
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    SessionEventBroadcaster classUnderTest = new SessionEventBroadcaster(pending::add, 2, 60000, new ObjectMapper(),
+            meterRegistry);
+
+    @Test
+    public void testSubscribersAreCountedAndRemovedOnCompletion() {
+        // Given
+        classUnderTest.subscribe();
+        classUnderTest.subscribe();
+
+        // Then
+        assertEquals(2, classUnderTest.subscriberCount());
+        assertEquals(2.0, meterRegistry.get("session.events.subscribers").gauge().value());
+    }
+
+    @Test
+    public void testOneDrainPerSubscriberWhileEventsQueue() {
+        // Given
+        classUnderTest.subscribe();
+
+        // When: deux événements avant que le premier envoi ne démarre
+        classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.CREATED, 1L));
+        classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.PARTICIPATED, 1L, 2L));
+
+        // Then
+        assertEquals(1, pending.size());
+        assertEquals(1, classUnderTest.subscriberCount());
+    }
+
+    @Test
+    public void testSlowSubscriberIsDroppedWhenBufferOverflows() {
+        // Given
+        classUnderTest.subscribe();
+
+        // When: trois événements pour un tampon de deux
+        for (long id = 1; id <= 3; id++) {
+            classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.UPDATED, id));
+        }
+
+        // Then: l'abonné est déconnecté, les autres ne sont pas ralentis
+        assertEquals(0, classUnderTest.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("session.events.dropped").counter().count());
+    }
+
+    @Test
+    public void testDrainedSubscriberAcceptsMoreEvents() {
+        // Given
+        classUnderTest.subscribe();
+        classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.UPDATED, 1L));
+        classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.UPDATED, 2L));
+
+        // When: le tampon est vidé puis de nouveaux événements arrivent
+        pending.remove(0).run();
+        classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.UPDATED, 3L));
+        classUnderTest.onSessionChanged(new SessionChangedEvent(SessionChangedEvent.Type.DELETED, 3L));
+
+        // Then
+        assertEquals(1, classUnderTest.subscriberCount());
+        assertEquals(1, pending.size());
+    }
+}
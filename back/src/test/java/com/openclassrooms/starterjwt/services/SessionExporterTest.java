@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+public class SessionExporterTest {
+    EntityManagerFactory mockEntityManagerFactory = Mockito.mock(EntityManagerFactory.class);
+    SessionMapper mockSessionMapper = Mockito.mock(SessionMapper.class);
+
+    @Test
+    public void testExportPastTimeLimitStopsBeforeReading() {
+        // Given: une limite déjà dépassée
+        SessionExporter exporter = new SessionExporter(mockEntityManagerFactory, mockSessionMapper, new ObjectMapper(), -1);
+
+        // When / Then: aucune fenêtre n'est lue, aucune connexion prise
+        assertThrows(IOException.class, () -> exporter.export(new ByteArrayOutputStream(), true));
+        Mockito.verifyNoInteractions(mockEntityManagerFactory);
+    }
+}
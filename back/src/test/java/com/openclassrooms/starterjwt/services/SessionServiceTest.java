@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -9,9 +11,10 @@ import org.junit.jupiter.api.Test;
 import org.mapstruct.control.MappingControl.Use;
 import org.mockito.Mockito;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
@@ -19,9 +22,20 @@ import com.openclassrooms.starterjwt.models.User;
 
 public class SessionServiceTest {
     SessionRepository mockSessionRepository = org.mockito.Mockito.mock(SessionRepository.class);
-    UserRepository mockUserRepository = org.mockito.Mockito.mock(UserRepository.class);
+    SessionEnrollment mockSessionEnrollment = org.mockito.Mockito.mock(SessionEnrollment.class);
 
-    SessionService classUnderTest = new SessionService(mockSessionRepository, mockUserRepository);
+    SessionChangeFeed mockSessionChangeFeed = org.mockito.Mockito.mock(SessionChangeFeed.class);
+
+    ApplicationEventPublisher mockEventPublisher = org.mockito.Mockito.mock(ApplicationEventPublisher.class);
+
+    SessionService classUnderTest = new SessionService(mockSessionRepository, mockSessionEnrollment, mockSessionChangeFeed,
+            mockEventPublisher, 3, 0);
+
+    private SessionChangedEvent publishedEvent() {
+        ArgumentCaptor<SessionChangedEvent> event = ArgumentCaptor.forClass(SessionChangedEvent.class);
+        Mockito.verify(mockEventPublisher).publishEvent(event.capture());
+        return event.getValue();
+    }
 
     @Test
     public void testCreate() {
@@ -30,12 +44,49 @@ public class SessionServiceTest {
                 .name("Session 1")
                 .description("Description 1")
                 .build();
+        when(mockSessionRepository.save(sessionToCreate)).thenReturn(sessionToCreate.setId(3L));
 
         // When
         classUnderTest.create(sessionToCreate);
 
         // Then
         Mockito.verify(mockSessionRepository).save(sessionToCreate);
+        assertEquals(SessionChangedEvent.Type.CREATED, publishedEvent().getType());
+        assertEquals(3L, publishedEvent().getSessionId());
+    }
+
+    @Test
+    public void testCreateWithUnknownTeacherThrowsBadRequest() {
+        // Given: la référence vers le professeur échoue sur la clé étrangère
+        Session sessionToCreate = Session.builder()
+                .name("Session 1")
+                .teacher(com.openclassrooms.starterjwt.models.Teacher.builder().id(99L).build())
+                .build();
+        when(mockSessionRepository.save(sessionToCreate))
+                .thenThrow(new org.springframework.dao.DataIntegrityViolationException("fk", new java.sql.SQLException(
+                        "Cannot add or update a child row: a foreign key constraint fails (`SESSIONS`, "
+                                + "CONSTRAINT `SESSIONS_ibfk_1` FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`))")));
+
+        // When / Then
+        BadRequestException e = assertThrows(BadRequestException.class, () -> classUnderTest.create(sessionToCreate));
+        assertEquals("Unknown teacher id: 99", e.getMessage());
+        Mockito.verifyNoInteractions(mockEventPublisher);
+    }
+
+    @Test
+    public void testCreateWithOtherIntegrityViolationIsNotReportedAsUnknownTeacher() {
+        // Given: une description trop longue pour la colonne, avec un professeur valide
+        Session sessionToCreate = Session.builder()
+                .name("Session 1")
+                .teacher(com.openclassrooms.starterjwt.models.Teacher.builder().id(3L).build())
+                .build();
+        org.springframework.dao.DataIntegrityViolationException tooLong = new org.springframework.dao.DataIntegrityViolationException(
+                "too long", new java.sql.SQLException("Data too long for column 'description' at row 1"));
+        when(mockSessionRepository.save(sessionToCreate)).thenThrow(tooLong);
+
+        // When / Then: l'erreur d'origine est propagée telle quelle
+        assertSame(tooLong, assertThrows(org.springframework.dao.DataIntegrityViolationException.class,
+                () -> classUnderTest.create(sessionToCreate)));
     }
 
     @Test
@@ -46,8 +97,10 @@ public class SessionServiceTest {
         // When
         classUnderTest.delete(sessionId);
 
-        // Then
+        // Then: une pierre tombale est laissée pour la synchronisation
+        Mockito.verify(mockSessionChangeFeed).recordDeletion(sessionId);
         Mockito.verify(mockSessionRepository).deleteById(sessionId);
+        assertEquals(SessionChangedEvent.Type.DELETED, publishedEvent().getType());
     }
 
     @Test
@@ -60,259 +113,319 @@ public class SessionServiceTest {
     }
 
     @Test
-    public void testGetById() {
+    public void testFindPageFirstPageHasNextCursor() {
+        // Given: trois sessions pour une page de deux
+        Session s1 = Session.builder().id(1L).date(new java.util.Date(1000L)).build();
+        Session s2 = Session.builder().id(2L).date(new java.util.Date(2000L)).build();
+        Session s3 = Session.builder().id(3L).date(new java.util.Date(3000L)).build();
+        when(mockSessionRepository.findAllByOrderByDateAscIdAsc(any()))
+                .thenReturn(new java.util.ArrayList<>(java.util.List.of(s1, s2, s3)));
+
+        // When
+        SessionPage page = classUnderTest.findPage(null, 2);
+
+        // Then: une ligne de plus est demandée pour savoir s'il reste une page
+        ArgumentCaptor<org.springframework.data.domain.Pageable> pageable = ArgumentCaptor
+                .forClass(org.springframework.data.domain.Pageable.class);
+        Mockito.verify(mockSessionRepository).findAllByOrderByDateAscIdAsc(pageable.capture());
+        assertEquals(3, pageable.getValue().getPageSize());
+        assertEquals(java.util.List.of(s1, s2), page.getSessions());
+        assertEquals(new SessionCursor(s2.getDate(), 2L), page.getNext());
+    }
+
+    @Test
+    public void testFindPageAfterCursorLastPage() {
         // Given
-        Long sessionId = 1L;
+        SessionCursor cursor = new SessionCursor(new java.util.Date(2000L), 2L);
+        Session s3 = Session.builder().id(3L).date(new java.util.Date(3000L)).build();
+        when(mockSessionRepository.findPageAfter(any(), any(), any())).thenReturn(java.util.List.of(s3));
 
         // When
-        classUnderTest.getById(sessionId);
+        SessionPage page = classUnderTest.findPage(cursor, 2);
 
         // Then
-        Mockito.verify(mockSessionRepository)
-                .findById(sessionId);
+        Mockito.verify(mockSessionRepository).findPageAfter(any(), org.mockito.ArgumentMatchers.eq(2L), any());
+        assertEquals(java.util.List.of(s3), page.getSessions());
+        assertEquals(null, page.getNext());
     }
 
     @Test
-    public void testUpdate() {
+    public void testGetParticipantIdsGroupsBySession() {
         // Given
-        Session sessionToUpdate = Session.builder()
-                .id(1L)
-                .name("Updated Session")
-                .description("Updated Description")
-                .build();
-        Long sessionId = 2L;
+        com.openclassrooms.starterjwt.repository.SessionParticipant p1 = participant(1L, 10L);
+        com.openclassrooms.starterjwt.repository.SessionParticipant p2 = participant(1L, 11L);
+        com.openclassrooms.starterjwt.repository.SessionParticipant p3 = participant(2L, 10L);
+        when(mockSessionRepository.findParticipantIds(java.util.List.of(1L, 2L, 3L)))
+                .thenReturn(java.util.List.of(p1, p2, p3));
 
         // When
-        classUnderTest.update(sessionId, sessionToUpdate);
+        java.util.Map<Long, java.util.List<Long>> participants = classUnderTest
+                .getParticipantIds(java.util.List.of(1L, 2L, 3L));
 
         // Then
-        assertEquals(sessionToUpdate.getId(), sessionId);
+        assertEquals(java.util.List.of(10L, 11L), participants.get(1L));
+        assertEquals(java.util.List.of(10L), participants.get(2L));
+        assertEquals(null, participants.get(3L));
+    }
+
+    @Test
+    public void testGetParticipantIdsEmptyInputSkipsQuery() {
+        // When
+        java.util.Map<Long, java.util.List<Long>> participants = classUnderTest
+                .getParticipantIds(java.util.List.of());
 
-        Mockito.verify(mockSessionRepository).save(sessionToUpdate);
+        // Then
+        assertTrue(participants.isEmpty());
+        Mockito.verify(mockSessionRepository, Mockito.never()).findParticipantIds(any());
     }
 
     @Test
-    public void testParticipate() {
+    public void testGetJoinedSessionIdsEmptyInputSkipsQuery() {
         // Given
-        Long sessionId = 1L;
-        Long userId = 2L;
-
-        User mockedUser = User.builder()
-                .id(userId)
-                .email("user@example.com")
-                .firstName("John")
-                .lastName("Doe")
-                .password("password")
-                .admin(false)
-                .build();
+        when(mockSessionRepository.findJoinedSessionIds(7L, java.util.List.of(1L, 2L)))
+                .thenReturn(java.util.List.of(2L));
 
-        Session mockedSession = Session.builder()
-                .id(sessionId)
-                .users(new java.util.ArrayList<>())
-                .build();
+        // When / Then
+        assertEquals(java.util.Set.of(2L), classUnderTest.getJoinedSessionIds(7L, java.util.List.of(1L, 2L)));
+        assertTrue(classUnderTest.getJoinedSessionIds(7L, java.util.List.of()).isEmpty());
+        Mockito.verify(mockSessionRepository, Mockito.never()).findJoinedSessionIds(7L, java.util.List.of());
+    }
 
-        when(mockUserRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedUser));
+    private static com.openclassrooms.starterjwt.repository.SessionParticipant participant(Long sessionId,
+            Long userId) {
+        com.openclassrooms.starterjwt.repository.SessionParticipant participant = Mockito
+                .mock(com.openclassrooms.starterjwt.repository.SessionParticipant.class);
+        when(participant.getSessionId()).thenReturn(sessionId);
+        when(participant.getUserId()).thenReturn(userId);
+        return participant;
+    }
 
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedSession));
+    @Test
+    public void testFindParticipantPageHasNextCursor() {
+        // Given
+        when(mockSessionRepository.findParticipantIdsAfter(1L, 5L, org.springframework.data.domain.PageRequest.of(0, 3)))
+                .thenReturn(java.util.List.of(6L, 7L, 8L));
 
         // When
-        classUnderTest.participate(sessionId, userId);
+        ParticipantPage page = classUnderTest.findParticipantPage(1L, new ParticipantCursor(5L), 2);
 
-        // Then
-        Mockito.verify(mockSessionRepository).findById(sessionId);
-        Mockito.verify(mockUserRepository).findById(userId);
-        Mockito.verify(mockSessionRepository).save(Mockito.any(Session.class));
+        // Then: une ligne de plus signale la page suivante, sans vérifier la session
+        assertEquals(java.util.List.of(6L, 7L), page.getUserIds());
+        assertEquals(new ParticipantCursor(7L), page.getNext());
+        Mockito.verify(mockSessionRepository, Mockito.never()).existsById(any());
     }
 
     @Test
-    public void testParticipateTrownNotFoundExceptionWhenSessionNotFound() {
+    public void testFindParticipantPageUnknownSessionThrowsNotFound() {
         // Given
-        Long sessionId = 1L;
-        Long userId = 2L;
+        when(mockSessionRepository.findParticipantIdsAfter(any(), any(), any())).thenReturn(java.util.List.of());
+        when(mockSessionRepository.existsById(1L)).thenReturn(false);
 
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.empty());
+        // When / Then
+        assertThrows(NotFoundException.class, () -> classUnderTest.findParticipantPage(1L, null, 2));
+    }
 
-        // When
+    @Test
+    public void testGetById() {
+        // Given
+        Long sessionId = 1L;
 
-        try {
-            classUnderTest.participate(sessionId, userId);
-        } catch (Exception e) {
-            // Then
-            assertEquals(NotFoundException.class, e.getClass());
-        }
+        // When
+        classUnderTest.getById(sessionId);
 
         // Then
-        Mockito.verify(mockSessionRepository).findById(sessionId);
-        Mockito.verify(mockUserRepository).findById(userId);
+        Mockito.verify(mockSessionRepository)
+                .findById(sessionId);
     }
 
     @Test
-    public void testParticipateTrownNotFoundExceptionWhenUserNotFound() {
-        // Given
-        Long sessionId = 1L;
-        Long userId = 2L;
-
-        Session mockedSession = Session.builder()
+    public void testUpdate() {
+        // Given: la session stockée a un participant, le corps de la requête n'en a aucun
+        Long sessionId = 2L;
+        User participant = User.builder().id(7L).email("p@example.com").firstName("P").lastName("P")
+                .password("pwd").admin(false).build();
+        Session stored = Session.builder()
                 .id(sessionId)
-                .users(new java.util.ArrayList<>())
+                .name("Session")
+                .description("Description")
+                .users(new java.util.ArrayList<>(java.util.List.of(participant)))
+                .build();
+        Session sessionToUpdate = Session.builder()
+                .name("Updated Session")
+                .description("Updated Description")
                 .build();
+        when(mockSessionRepository.findById(sessionId)).thenReturn(java.util.Optional.of(stored));
+        when(mockSessionRepository.save(stored)).thenReturn(stored);
 
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedSession));
+        // When
+        Session updated = classUnderTest.update(sessionId, sessionToUpdate);
+
+        // Then: seuls les champs de la session changent, les inscriptions sont conservées
+        assertEquals("Updated Session", updated.getName());
+        assertEquals("Updated Description", updated.getDescription());
+        assertEquals(java.util.List.of(participant), updated.getUsers());
+        Mockito.verify(mockSessionRepository).flush();
+        assertEquals(SessionChangedEvent.Type.UPDATED, publishedEvent().getType());
+        assertEquals(sessionId, publishedEvent().getSessionId());
+    }
 
-        when(mockUserRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.empty());
+    @Test
+    public void testUpdateRaisingCapacityPromotesWaitlist() {
+        // Given
+        Long sessionId = 2L;
+        Session stored = Session.builder().id(sessionId).name("Session").capacity(10).build();
+        when(mockSessionRepository.findById(sessionId)).thenReturn(java.util.Optional.of(stored));
+        when(mockSessionRepository.save(stored)).thenReturn(stored);
 
         // When
+        classUnderTest.update(sessionId, Session.builder().name("Session").capacity(12).build());
+
+        // Then
+        Mockito.verify(mockSessionEnrollment).promote(sessionId);
+    }
 
-        try {
-            classUnderTest.participate(sessionId, userId);
-        } catch (Exception e) {
-            // Then
-            assertEquals(NotFoundException.class, e.getClass());
+    @Test
+    public void testUpdateLoweringCapacityDoesNotPromote() {
+        // Given
+        Long sessionId = 2L;
+        Session stored = Session.builder().id(sessionId).name("Session").capacity(10).build();
+        when(mockSessionRepository.findById(sessionId)).thenReturn(java.util.Optional.of(stored));
+        when(mockSessionRepository.save(stored)).thenReturn(stored);
 
-        }
+        // When
+        classUnderTest.update(sessionId, Session.builder().name("Session").capacity(8).build());
 
-        // Then
-        Mockito.verify(mockSessionRepository).findById(sessionId);
-        Mockito.verify(mockUserRepository).findById(userId);
+        // Then: les inscrits au-delà restent, personne n'est ajouté
+        assertEquals(8, stored.getCapacity());
+        Mockito.verifyNoInteractions(mockSessionEnrollment);
     }
 
     @Test
-    public void testParticipateTrownBadRequestExceptionWhenAlreadyParticipate() {
+    public void testCreateWithMoreParticipantsThanCapacityThrowsBadRequest() {
         // Given
-        Long sessionId = 1L;
-        Long userId = 2L;
+        User first = User.builder().id(1L).email("a@example.com").firstName("A").lastName("A")
+                .password("pwd").admin(false).build();
+        User second = User.builder().id(2L).email("b@example.com").firstName("B").lastName("B")
+                .password("pwd").admin(false).build();
+        Session sessionToCreate = Session.builder().name("Session").capacity(1)
+                .users(java.util.List.of(first, second)).build();
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> classUnderTest.create(sessionToCreate));
+        Mockito.verifyNoInteractions(mockSessionRepository);
+    }
 
-        User mockedUser = User.builder()
-                .id(userId)
-                .email("user@example.com")
-                .firstName("John")
-                .lastName("Doe")
-                .password("password")
-                .admin(false)
-                .build();
+    @Test
+    public void testUpdateUnknownSessionThrowsNotFound() {
+        // Given
+        when(mockSessionRepository.findById(2L)).thenReturn(java.util.Optional.empty());
 
-        Session mockedSession = Session.builder()
-                .id(sessionId)
-                .users(new java.util.ArrayList<>(java.util.List.of(mockedUser)))
-                .build();
+        // When / Then
+        assertThrows(NotFoundException.class, () -> classUnderTest.update(2L, Session.builder().build()));
+        Mockito.verify(mockSessionRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    public void testParticipateDelegatesToEnrollment() {
+        // Given
+        Long sessionId = 1L;
+        Long userId = 2L;
+        when(mockSessionEnrollment.enroll(sessionId, userId)).thenReturn(true);
 
-        when(mockUserRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedUser));
+        // When / Then
+        assertTrue(classUnderTest.participate(sessionId, userId));
+        Mockito.verifyNoInteractions(mockSessionRepository);
+    }
 
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedSession));
+    @Test
+    public void testParticipateRetriesAfterLockFailure() {
+        // Given: la première transaction perd un verrou face aux autres inscriptions
+        Long sessionId = 1L;
+        Long userId = 2L;
+        when(mockSessionEnrollment.enroll(sessionId, userId))
+                .thenThrow(new org.springframework.dao.CannotAcquireLockException("deadlock"))
+                .thenReturn(false);
 
         // When
-        try {
-            classUnderTest.participate(sessionId, userId);
-        } catch (Exception e) {
-            // Then
-            assertEquals(BadRequestException.class, e.getClass());
-        }
+        boolean seated = classUnderTest.participate(sessionId, userId);
 
         // Then
-        Mockito.verify(mockSessionRepository).findById(sessionId);
-        Mockito.verify(mockUserRepository).findById(userId);
+        assertEquals(false, seated);
+        Mockito.verify(mockSessionEnrollment, Mockito.times(2)).enroll(sessionId, userId);
     }
 
     @Test
-    public void testNoLongerParticipate() {
+    public void testParticipateThrowsConflictWhenLockFailuresPersist() {
         // Given
         Long sessionId = 1L;
         Long userId = 2L;
-        Long anotherUserId = 3L;
-        User mockedUser = User.builder()
-                .id(userId)
-                .email("user@example.com")
-                .firstName("John")
-                .lastName("Doe")
-                .password("password")
-                .admin(false)
-                .build();
+        when(mockSessionEnrollment.enroll(sessionId, userId))
+                .thenThrow(new org.springframework.dao.CannotAcquireLockException("deadlock"));
 
-        User anotherMockedUser = User.builder()
-                .id(anotherUserId)
-                .email("user@example.com")
-                .firstName("John")
-                .lastName("Doe")
-                .password("password")
-                .admin(false)
-                .build();
-
-        Session mockedSession = Session.builder()
-                .id(sessionId)
-                .users(new java.util.ArrayList<>(java.util.List.of(mockedUser, anotherMockedUser)))
-                .build();
+        // When / Then: trois tentatives au plus, puis 409
+        assertThrows(com.openclassrooms.starterjwt.exception.ConflictException.class,
+                () -> classUnderTest.participate(sessionId, userId));
+        Mockito.verify(mockSessionEnrollment, Mockito.times(3)).enroll(sessionId, userId);
+    }
 
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedSession));
+    @Test
+    public void testParticipateBacksOffThenRetriesAfterLockFailure() {
+        // Given: une attente aléatoire d'au plus 5 ms avant la seconde tentative
+        SessionService withBackoff = new SessionService(mockSessionRepository, mockSessionEnrollment,
+                mockSessionChangeFeed, mockEventPublisher, 3, 5);
+        Long sessionId = 1L;
+        Long userId = 2L;
+        when(mockSessionEnrollment.enroll(sessionId, userId))
+                .thenThrow(new org.springframework.dao.CannotAcquireLockException("deadlock"))
+                .thenReturn(true);
 
         // When
-        classUnderTest.noLongerParticipate(sessionId, userId);
+        boolean seated = withBackoff.participate(sessionId, userId);
 
         // Then
-        ArgumentCaptor<Session> captor = ArgumentCaptor.forClass(Session.class);
-        Mockito.verify(mockSessionRepository).save(captor.capture());
-        Mockito.verify(mockSessionRepository).findById(sessionId);
-        Session saved = captor.getValue();
-        // verifie que l'utilisateur a été supprimé de la session
-        assertTrue(saved.getUsers().stream().noneMatch(u -> u.getId().equals(userId)));
-        // verifie que l'autre utilisateur est toujours dans la session
-        assertTrue(saved.getUsers().stream().anyMatch(u -> u.getId().equals(anotherUserId)));
+        assertTrue(seated);
+        Mockito.verify(mockSessionEnrollment, Mockito.times(2)).enroll(sessionId, userId);
+    }
+
+    @Test
+    public void testParticipateTrownBadRequestExceptionWhenConstraintViolated() {
+        // Given: une inscription concurrente identique a été validée entre-temps
+        Long sessionId = 1L;
+        Long userId = 2L;
 
+        when(mockSessionEnrollment.enroll(sessionId, userId))
+                .thenThrow(new org.springframework.dao.DataIntegrityViolationException("duplicate"));
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> classUnderTest.participate(sessionId, userId));
     }
 
     @Test
-    public void testNoLongerParticipateTrownNotFoundExceptionWhenSessionNotFound() {
+    public void testNoLongerParticipateDelegatesToEnrollment() {
         // Given
         Long sessionId = 1L;
         Long userId = 2L;
 
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.empty());
-
         // When
-
-        try {
-            classUnderTest.noLongerParticipate(sessionId, userId);
-        } catch (Exception e) {
-            // Then
-            assertEquals(NotFoundException.class, e.getClass());
-        }
+        classUnderTest.noLongerParticipate(sessionId, userId);
 
         // Then
-        Mockito.verify(mockSessionRepository).findById(sessionId);
+        Mockito.verify(mockSessionEnrollment).leave(sessionId, userId);
     }
 
     @Test
-    public void testNoLongerParticipateTrownBadRequestExceptionWhenNotParticipate() {
+    public void testNoLongerParticipateRetriesAfterLockFailure() {
         // Given
         Long sessionId = 1L;
         Long userId = 2L;
-
-        Session mockedSession = Session.builder()
-                .id(sessionId)
-                .users(new java.util.ArrayList<>())
-                .build();
-
-        when(mockSessionRepository.findById(any(Long.class)))
-                .thenReturn(java.util.Optional.of(mockedSession));
+        Mockito.doThrow(new org.springframework.dao.CannotAcquireLockException("deadlock"))
+                .doNothing()
+                .when(mockSessionEnrollment).leave(sessionId, userId);
 
         // When
-        try {
-            classUnderTest.noLongerParticipate(sessionId, userId);
-        } catch (Exception e) {
-            // Then
-            assertEquals(BadRequestException.class, e.getClass());
-        }
+        classUnderTest.noLongerParticipate(sessionId, userId);
 
         // Then
-        Mockito.verify(mockSessionRepository).findById(sessionId);
+        Mockito.verify(mockSessionEnrollment, Mockito.times(2)).leave(sessionId, userId);
     }
-
 }
@@ -33,4 +33,17 @@ public class TeacherServiceTest {
         org.mockito.Mockito.verify(mockTeacherRepository).findById(teacherId);
     }
 
+    @Test
+    public void testGetReferenceDoesNotSelect() {
+        // Given
+        Long teacherId = 1L;
+
+        // When
+        classUnderTest.getReference(teacherId);
+
+        // Then
+        org.mockito.Mockito.verify(mockTeacherRepository).getReferenceById(teacherId);
+        org.mockito.Mockito.verify(mockTeacherRepository, org.mockito.Mockito.never()).findById(teacherId);
+    }
+
 }
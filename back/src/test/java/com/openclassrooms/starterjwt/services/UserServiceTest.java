@@ -1,7 +1,16 @@
 package com.openclassrooms.starterjwt.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
 public class UserServiceTest {
@@ -33,4 +42,44 @@ public class UserServiceTest {
         // then
         org.mockito.Mockito.verify(mockUserRepository).findById(userId);
     }
+
+    @Test
+    public void testFindAllByIdUsesSingleQueryInRequestOrder() {
+        // given
+        User user10 = User.builder().id(10L).email("user10@example.com").firstName("U").lastName("L").password("p").build();
+        User user11 = User.builder().id(11L).email("user11@example.com").firstName("U").lastName("L").password("p").build();
+        org.mockito.Mockito.when(mockUserRepository.findAllById(Set.of(10L, 11L))).thenReturn(List.of(user10, user11));
+
+        // when
+        List<User> users = classUnderTest.findAllById(List.of(11L, 10L, 11L));
+
+        // then
+        assertEquals(List.of(user11, user10), users);
+        org.mockito.Mockito.verify(mockUserRepository).findAllById(Set.of(10L, 11L));
+        org.mockito.Mockito.verify(mockUserRepository, org.mockito.Mockito.never()).findById(org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testFindAllByIdReportsUnknownIds() {
+        // given
+        org.mockito.Mockito.when(mockUserRepository.findAllById(org.mockito.ArgumentMatchers.any()))
+                .thenReturn(List.of(User.builder().id(10L).email("user10@example.com").firstName("U").lastName("L").password("p").build()));
+
+        // when
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> classUnderTest.findAllById(List.of(10L, 42L, 43L)));
+
+        // then
+        assertEquals("Unknown user ids: [42, 43]", e.getMessage());
+    }
+
+    @Test
+    public void testFindAllByIdWithoutIdsSkipsQuery() {
+        // when
+        List<User> users = classUnderTest.findAllById(List.of());
+
+        // then
+        assertTrue(users.isEmpty());
+        org.mockito.Mockito.verifyNoInteractions(mockUserRepository);
+    }
 }
@@ -1,6 +1,7 @@
-import { HttpClientModule } from '@angular/common/http';
+import { HttpClientModule, HttpHeaders, HttpResponse } from '@angular/common/http';
 import { TestBed } from '@angular/core/testing';
 import { expect } from '@jest/globals';
+import { of } from 'rxjs';
 
 import { SessionApiService } from './session-api.service';
 
@@ -22,7 +23,8 @@ describe('SessionsService', () => {
 
   it('should all call HttpClient get method', () => {
     // Given
-    const httpClientSpy = jest.spyOn(service['httpClient'], 'get').mockReturnValueOnce({} as any);
+    const httpClientSpy = jest.spyOn(service['httpClient'], 'get')
+      .mockReturnValueOnce(of(new HttpResponse({ body: [] })) as any);
 
     // When
     const observable = service.all();
@@ -33,6 +35,27 @@ describe('SessionsService', () => {
 
   });
 
+  it('should all follow the next cursor until the last page', (done) => {
+    // Given: two pages, the first one pointing to the second
+    const first = [{ id: 1 }, { id: 2 }] as any[];
+    const second = [{ id: 3 }] as any[];
+    const httpClientSpy = jest.spyOn(service['httpClient'], 'get')
+      .mockReturnValueOnce(of(new HttpResponse({
+        body: first,
+        headers: new HttpHeaders({ [SessionApiService.NEXT_CURSOR_HEADER]: 'abc' })
+      })) as any)
+      .mockReturnValueOnce(of(new HttpResponse({ body: second })) as any);
+
+    // When
+    service.all().subscribe((sessions) => {
+      // Then
+      expect(sessions).toEqual([...first, ...second]);
+      expect(httpClientSpy).toHaveBeenCalledTimes(2);
+      expect((httpClientSpy.mock.calls[1][1] as any).params.get('cursor')).toBe('abc');
+      done();
+    });
+  });
+
   it('should detail call HttpClient get method with id in url', () => {
     // Given
     const httpClientSpy = jest.spyOn(service['httpClient'], 'get').mockReturnValueOnce({} as any);
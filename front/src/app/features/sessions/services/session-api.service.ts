@@ -1,6 +1,6 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable, expand, reduce } from 'rxjs';
 import { Session } from '../interfaces/session.interface';
 
 @Injectable({
@@ -10,11 +10,23 @@ export class SessionApiService {
 
   private pathService = 'api/session';
 
+  public static readonly NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
   constructor(private httpClient: HttpClient) {
   }
 
+  /**
+   * Whole catalog: the API answers one page at a time, so the X-Next-Cursor header is followed
+   * until the last page.
+   */
   public all(): Observable<Session[]> {
-    return this.httpClient.get<Session[]>(this.pathService);
+    return this.page(null).pipe(
+      expand((response) => {
+        const cursor = response.headers.get(SessionApiService.NEXT_CURSOR_HEADER);
+        return cursor ? this.page(cursor) : EMPTY;
+      }),
+      reduce((sessions, response) => sessions.concat(response.body ?? []), [] as Session[])
+    );
   }
 
   public detail(id: string): Observable<Session> {
@@ -41,4 +53,9 @@ export class SessionApiService {
     return this.httpClient.delete<void>(`${this.pathService}/${id}/participate/${userId}`);
   }
 
+  private page(cursor: string | null): Observable<HttpResponse<Session[]>> {
+    const params = cursor ? new HttpParams().set('cursor', cursor) : undefined;
+    return this.httpClient.get<Session[]>(this.pathService, { observe: 'response', params });
+  }
+
 }
@@ -103,4 +103,22 @@ describe('ListComponent Integration', () => {
 
     expect(detailBtn.getAttribute('ng-reflect-router-link')).toContain('detail,1');
   });
+
+  it('should list sessions from every catalog page', () => {
+    // Given
+    const firstPage = [
+      { id: 1, name: 'Yoga', description: 'Relax', date: new Date(), teacher_id: 1, users: [] }
+    ];
+    const lastPage = [
+      { id: 2, name: 'Pilates', description: 'Core', date: new Date(), teacher_id: 1, users: [] }
+    ];
+
+    // When
+    httpMock.expectOne('api/session').flush(firstPage, { headers: { 'X-Next-Cursor': 'abc' } });
+    httpMock.expectOne((req) => req.url === 'api/session' && req.params.get('cursor') === 'abc').flush(lastPage);
+    fixture.detectChanges();
+
+    // Then
+    expect(fixture.nativeElement.querySelectorAll('.item').length).toBe(2);
+  });
 });